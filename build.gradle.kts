@@ -1,12 +1,16 @@
 
 plugins {
     java
-    id("com.github.johnrengelman.shadow") version "8.1.1"
+    id("com.gradleup.shadow") version "9.2.2"
 }
 
 group = "com.zeenea"
 version = "1.0.0"
-java.sourceCompatibility = JavaVersion.VERSION_17
+java {
+    toolchain {
+        languageVersion.set(JavaLanguageVersion.of(17))
+    }
+}
 
 repositories {
     mavenCentral()
@@ -21,13 +25,11 @@ dependencies {
     implementation("com.fasterxml.jackson.core:jackson-core:2.15.2")
     implementation("com.fasterxml.jackson.datatype:jackson-datatype-jsr310:2.15.2")
 
-    // SLF4J logging
+    // SLF4J logging, slf4j-simple is the only backend
     implementation("org.slf4j:slf4j-api:2.0.7")
     implementation("org.slf4j:slf4j-simple:2.0.7")
-
-    // Log4j logging
-    implementation("org.apache.logging.log4j:log4j-api:2.22.0")
-    implementation("org.apache.logging.log4j:log4j-core:2.22.0")
+    // POI logs through log4j-api; route it to SLF4J instead of shipping log4j-core
+    runtimeOnly("org.apache.logging.log4j:log4j-to-slf4j:2.18.0")
 
     // JUnit 5
     testImplementation("org.junit.jupiter:junit-jupiter:5.10.0")
@@ -58,3 +60,35 @@ tasks.register("runLocal", JavaExec::class) {
     classpath = sourceSets.main.get().runtimeClasspath
     args = listOf("./test-data")
 }
+
+// Application class-data sharing archive for short scheduled runs: a training run over
+// ./test-data records the loaded classes, later runs map them instead of loading them.
+// The archive is only valid for this exact jar; run it with
+//   java -XX:SharedArchiveFile=build/libs/excel-connector.jsa -jar build/libs/excel-connector-1.0.0.jar <dir>
+tasks.register("cdsArchive", Exec::class) {
+    group = "distribution"
+    // the archive only matches the JVM that wrote it: train with the toolchain the build targets
+    val launcher = javaToolchains.launcherFor(java.toolchain)
+    val jar = tasks.named<com.github.jengelman.gradle.plugins.shadow.tasks.ShadowJar>("shadowJar")
+        .flatMap { it.archiveFile }
+    val archive = layout.buildDirectory.file("libs/excel-connector.jsa")
+    val trainingDir = layout.buildDirectory.dir("cds-training")
+    val testData = layout.projectDirectory.dir("test-data")
+    inputs.file(jar)
+    outputs.file(archive)
+    // output.json of the training run lands in build/cds-training
+    workingDir(trainingDir)
+    argumentProviders.add(CommandLineArgumentProvider {
+        listOf(
+            "-XX:ArchiveClassesAtExit=${archive.get().asFile.absolutePath}",
+            // reflection stubs cannot be archived; the per-class warnings are noise
+            "-Xlog:cds=error",
+            "-jar", jar.get().asFile.absolutePath,
+            testData.asFile.absolutePath
+        )
+    })
+    doFirst {
+        trainingDir.get().asFile.mkdirs()
+        executable = launcher.get().executablePath.asFile.absolutePath
+    }
+}
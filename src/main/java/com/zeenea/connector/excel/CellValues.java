@@ -0,0 +1,46 @@
+package com.zeenea.connector.excel;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.util.LocaleUtil;
+import org.apache.poi.xssf.usermodel.XSSFCell;
+
+import java.text.SimpleDateFormat;
+
+/**
+ * Text of a cell as used for inference and profiling. Formula cells yield the result
+ * Excel cached when the file was saved instead of the formula text, so calculated
+ * columns are profiled on their values without running the formula evaluator.
+ */
+final class CellValues {
+
+    private CellValues() {
+    }
+
+    static String text(Cell cell) {
+        if (cell == null) return "";
+        if (cell.getCellType() != CellType.FORMULA) return cell.toString();
+        // a formula written without a cached result (e.g. by POI itself) has no value to report
+        if (cell instanceof XSSFCell && !((XSSFCell) cell).getCTCell().isSetV()) return "";
+        switch (cell.getCachedFormulaResultType()) {
+            case NUMERIC:
+                if (DateUtil.isCellDateFormatted(cell)) {
+                    // same rendering as Cell.toString() for plain date cells
+                    SimpleDateFormat sdf = new SimpleDateFormat("dd-MMM-yyyy", LocaleUtil.getUserLocale());
+                    sdf.setTimeZone(LocaleUtil.getUserTimeZone());
+                    return sdf.format(cell.getDateCellValue());
+                }
+                return Double.toString(cell.getNumericCellValue());
+            case STRING:
+                return cell.getStringCellValue();
+            case BOOLEAN:
+                return cell.getBooleanCellValue() ? "TRUE" : "FALSE";
+            case ERROR:
+                return FormulaError.forInt(cell.getErrorCellValue()).getString();
+            default:
+                return "";
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.zeenea.connector.excel;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Single-pass profile of one column. Every metric is updated per cell while the sheet
+ * is read once, and memory stays bounded: the distinct set is capped by the profiled
+ * row window, top values and patterns live in fixed-size Space-Saving sketches.
+ */
+final class ColumnProfiler {
+    static final int TOP_K = 5;
+    private static final int SKETCH_CAPACITY = 32;
+    private static final int MAX_SIGNATURE_LENGTH = 32;
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    // PII-like matchers; each is only tried after a cheap pre-check on the value
+    private static final Pattern EMAIL = Pattern.compile("[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}");
+    private static final Pattern IBAN = Pattern.compile("[A-Z]{2}[0-9]{2}[A-Z0-9]{11,30}");
+    private static final Pattern PHONE = Pattern.compile("\\+?[0-9(][0-9 ().-]{5,20}[0-9]");
+    private static final Pattern ISO_DATE = Pattern.compile("\\d{4}-\\d{2}-\\d{2}.*");
+    private static final Pattern DMY_DATE = Pattern.compile("\\d{1,2}[./-]\\d{1,2}[./-]\\d{2,4}");
+    // digit-group shapes that are not phone numbers: IPv4 addresses and grouped amounts (1 234 567)
+    private static final Pattern DOTTED_QUAD = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}");
+    private static final Pattern THOUSANDS = Pattern.compile("-?\\d{1,3}([ ,.'\\u00a0]\\d{3})+([.,]\\d{1,2})?");
+
+    private long rowCount;
+    private long nullCount;
+    private final Set<String> distinct = new HashSet<>();
+    private double sum;
+    private Double min, max;
+
+    private int minLength = Integer.MAX_VALUE;
+    private int maxLength;
+    private long totalLength;
+
+    private long numericCount, textCount, dateCount, booleanCount, otherCount;
+    private long leadingWhitespace, trailingWhitespace;
+    private long emailHits, ibanHits, phoneHits;
+
+    private final SpaceSaving topValues = new SpaceSaving(SKETCH_CAPACITY);
+    private final SpaceSaving patterns = new SpaceSaving(SKETCH_CAPACITY);
+
+    /** Rows absent from the sheet inside the profiled window. */
+    void addNulls(long n) {
+        rowCount += n;
+        nullCount += n;
+    }
+
+    void add(Cell cell) {
+        rowCount++;
+        String raw = CellValues.text(cell);
+        String v = raw.trim();
+        if (v.isEmpty()) {
+            nullCount++;
+            return;
+        }
+        distinct.add(v);
+        try {
+            double d = Double.parseDouble(v);
+            sum += d;
+            if (min == null || d < min) min = d;
+            if (max == null || d > max) max = d;
+        } catch (Exception ignored) {}
+
+        int len = v.length();
+        if (len < minLength) minLength = len;
+        if (len > maxLength) maxLength = len;
+        totalLength += len;
+        topValues.add(v);
+        patterns.add(signature(v));
+
+        CellType type = cell.getCellType();
+        if (type == CellType.FORMULA) type = cell.getCachedFormulaResultType();
+        switch (type) {
+            case NUMERIC:
+                if (DateUtil.isCellDateFormatted(cell)) dateCount++; else numericCount++;
+                break;
+            case STRING:
+                textCount++;
+                if (Character.isWhitespace(raw.charAt(0))) leadingWhitespace++;
+                if (Character.isWhitespace(raw.charAt(raw.length() - 1))) trailingWhitespace++;
+                matchPii(v);
+                break;
+            case BOOLEAN:
+                booleanCount++;
+                break;
+            default:
+                otherCount++;
+        }
+    }
+
+    private void matchPii(String v) {
+        if (v.indexOf('@') > 0) {
+            if (EMAIL.matcher(v).matches()) emailHits++;
+            return;
+        }
+        String compact = v.replace(" ", "");
+        if (compact.length() >= 15 && compact.length() <= 34 && Character.isLetter(compact.charAt(0))) {
+            if (IBAN.matcher(compact).matches() && ibanChecksumValid(compact)) ibanHits++;
+            return;
+        }
+        int digits = 0;
+        for (int i = 0; i < v.length(); i++) {
+            if (Character.isDigit(v.charAt(i))) digits++;
+        }
+        if (digits >= 7 && digits <= 15 && phoneStructure(v) && PHONE.matcher(v).matches()
+                && !ISO_DATE.matcher(v).matches() && !DMY_DATE.matcher(v).matches()
+                && !DOTTED_QUAD.matcher(v).matches() && !THOUSANDS.matcher(v).matches()) {
+            phoneHits++;
+        }
+    }
+
+    // A bare digit run is an ID or account number far more often than a phone number
+    // (text-stored, zero-padded); a phone needs a country prefix, an area code in
+    // parentheses, or at least three digit groups split by separators.
+    private static boolean phoneStructure(String v) {
+        if (v.charAt(0) == '+' || v.indexOf('(') >= 0) return true;
+        int groups = 0;
+        boolean inDigits = false;
+        for (int i = 0; i < v.length(); i++) {
+            boolean digit = Character.isDigit(v.charAt(i));
+            if (digit && !inDigits) groups++;
+            inDigits = digit;
+        }
+        return groups >= 3;
+    }
+
+    // ISO 13616 mod-97 check: move the first four characters to the end, letters become 10..35
+    private static boolean ibanChecksumValid(String iban) {
+        int mod = 0;
+        for (int i = 0; i < iban.length(); i++) {
+            char ch = iban.charAt((i + 4) % iban.length());
+            int n = Character.isDigit(ch) ? ch - '0' : ch - 'A' + 10;
+            mod = (n > 9 ? mod * 100 + n : mod * 10 + n) % 97;
+        }
+        return mod == 1;
+    }
+
+    /** Character-class signature, e.g. {@code AB-1234} becomes {@code AA-9999}. */
+    static String signature(String v) {
+        int n = Math.min(v.length(), MAX_SIGNATURE_LENGTH);
+        StringBuilder sb = new StringBuilder(n);
+        for (int i = 0; i < n; i++) {
+            char ch = v.charAt(i);
+            if (Character.isLetter(ch)) sb.append('A');
+            else if (Character.isDigit(ch)) sb.append('9');
+            else if (Character.isWhitespace(ch)) sb.append(' ');
+            else sb.append(ch);
+        }
+        return sb.toString();
+    }
+
+    Map<String,Object> toProperties() {
+        Map<String,Object> props = new HashMap<>();
+        long nonNull = rowCount - nullCount;
+        props.put("null_pct", pct(nullCount, rowCount));
+        props.put("distinct_pct", pct(distinct.size(), rowCount));
+        props.put("min_value", min==null?null:String.format("%s", min));
+        props.put("max_value", max==null?null:String.format("%s", max));
+        props.put("avg_value", (min==null && max==null)?null: (sum / Math.max(1.0, (double)nonNull)));
+        props.put("row_count", rowCount);
+
+        props.put("min_length", nonNull == 0 ? null : minLength);
+        props.put("max_length", nonNull == 0 ? null : maxLength);
+        props.put("avg_length", nonNull == 0 ? null : round2((double) totalLength / nonNull));
+
+        List<Map.Entry<String, Long>> topPatterns = patterns.top(1);
+        props.put("pattern_signature", topPatterns.isEmpty() ? null : topPatterns.get(0).getKey());
+        props.put("pattern_coverage_pct", topPatterns.isEmpty() ? 0.0 : pct(topPatterns.get(0).getValue(), nonNull));
+        List<Map<String,Object>> top = new ArrayList<>();
+        for (Map.Entry<String, Long> e : topValues.top(TOP_K)) {
+            Map<String,Object> item = new LinkedHashMap<>();
+            item.put("value", e.getKey());
+            item.put("count", e.getValue());
+            top.add(item);
+        }
+        try {
+            props.put("top_values", JSON.writeValueAsString(top));
+        } catch (JsonProcessingException e) {
+            props.put("top_values", "[]");
+        }
+
+        props.put("numeric_pct", pct(numericCount, nonNull));
+        props.put("text_pct", pct(textCount, nonNull));
+        props.put("date_pct", pct(dateCount, nonNull));
+        props.put("boolean_pct", pct(booleanCount, nonNull));
+        int kinds = 0;
+        for (long k : new long[]{numericCount, textCount, dateCount, booleanCount, otherCount}) {
+            if (k > 0) kinds++;
+        }
+        props.put("mixed_type", kinds > 1);
+
+        props.put("leading_whitespace_count", leadingWhitespace);
+        props.put("trailing_whitespace_count", trailingWhitespace);
+        props.put("pii_email_pct", pct(emailHits, nonNull));
+        props.put("pii_iban_pct", pct(ibanHits, nonNull));
+        props.put("pii_phone_pct", pct(phoneHits, nonNull));
+        return props;
+    }
+
+    private static double pct(long part, long whole) {
+        return whole == 0 ? 0.0 : round2((double) part / (double) whole * 100.0);
+    }
+
+    private static double round2(double d) {
+        return Math.round(d * 100.0) / 100.0;
+    }
+}
@@ -1,10 +1,27 @@
 
 package com.zeenea.connector.excel;
 
+import com.zeenea.connector.excel.cache.DirectoryResultCache;
+import com.zeenea.connector.excel.cache.KeyValueFileResultCache;
+import com.zeenea.connector.excel.cache.ResultCache;
+import com.zeenea.connector.excel.cache.WorkbookFingerprint;
+import com.zeenea.connector.excel.shard.ShardCoordinator;
+import com.zeenea.connector.excel.shard.ShardResult;
+import com.zeenea.connector.excel.shard.ShardRing;
 import com.zeenea.sdk.connector.Configuration;
 import com.zeenea.sdk.connector.Connection;
 import com.zeenea.sdk.model.Dataset;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.formula.FormulaParser;
+import org.apache.poi.ss.formula.FormulaParsingWorkbook;
+import org.apache.poi.ss.formula.FormulaType;
+import org.apache.poi.ss.formula.ptg.*;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.usermodel.XSSFEvaluationWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,7 +36,18 @@ import java.util.stream.Collectors;
  */
 public class ExcelConnection implements Connection {
     private static final Logger LOGGER = LoggerFactory.getLogger(ExcelConnection.class);
+    // Version of the extraction logic, part of every cache key: bump it whenever the
+    // datasets produced for a given workbook change.
+    static final int RESULT_VERSION = 8;
+    // crude parse: find tokens like A1, B2, Sheet2!A1, A1:B3
+    private static final java.util.regex.Pattern CELL_REF =
+            java.util.regex.Pattern.compile("('.*?'|[A-Za-z0-9_]+)?!?\\$?[A-Za-z]+\\$?\\d+(:\\$?[A-Za-z]+\\$?\\d+)?");
+    private static final com.fasterxml.jackson.databind.ObjectMapper JSON = new com.fasterxml.jackson.databind.ObjectMapper();
     private final Path directory;
+    private final ResultCache cache;
+    private final ShardRing ring;
+    private final int shardIndex;
+    private final Path shardDirectory;
 
     public ExcelConnection(Configuration config) {
         String p = config.get("directoryPath");
@@ -28,96 +56,254 @@ public class ExcelConnection implements Connection {
         if (!Files.isDirectory(directory) || !Files.isReadable(directory)) {
             throw new IllegalArgumentException("directoryPath must be readable");
         }
+        this.cache = openCache(config);
+
+        // Sharded mode: this connection only processes the files the ring assigns to
+        // "shardIndex" and publishes them to "shardDirectory" for ShardCoordinator.merge
+        String count = config.get("shardCount");
+        if (count == null) {
+            this.ring = null;
+            this.shardIndex = 0;
+            this.shardDirectory = null;
+        } else {
+            String index = config.get("shardIndex");
+            String shardDir = config.get("shardDirectory");
+            if (index == null || shardDir == null) {
+                throw new IllegalArgumentException("shardCount requires shardIndex and shardDirectory");
+            }
+            try {
+                this.ring = new ShardRing(Integer.parseInt(count));
+                this.shardIndex = Integer.parseInt(index);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("shardCount and shardIndex must be integers", e);
+            }
+            if (shardIndex < 0 || shardIndex >= ring.shardCount()) {
+                throw new IllegalArgumentException("shardIndex must be in [0, shardCount)");
+            }
+            this.shardDirectory = Paths.get(shardDir);
+        }
+    }
+
+    // Optional content-addressed result cache: "cacheDirectory" (one file per workbook,
+    // suited to a share used by several nodes) or "cacheFile" (single embedded store)
+    private static ResultCache openCache(Configuration config) {
+        String dir = config.get("cacheDirectory");
+        String file = config.get("cacheFile");
+        if (dir != null && file != null) {
+            throw new IllegalArgumentException("cacheDirectory and cacheFile are mutually exclusive");
+        }
+        if (dir != null) return new DirectoryResultCache(Paths.get(dir));
+        if (file != null) return new KeyValueFileResultCache(Paths.get(file));
+        return null;
     }
 
     @Override
     public List<Dataset> synchronize() throws Exception {
         List<Dataset> out = new ArrayList<>();
+        List<ShardResult> published = new ArrayList<>();
+        // the run id is read up front so a worker without a started run fails before any work
+        String runId = ring == null ? null : ShardCoordinator.currentRun(shardDirectory);
+        // Files are visited in relative-path order so single and sharded runs return the same stream
+        Map<String, Path> files = new TreeMap<>();
         try (var stream = Files.walk(directory)) {
-            List<Path> files = stream.filter(f -> f.toString().toLowerCase().endsWith(".xlsx"))
-                    .collect(Collectors.toList());
-            for (Path file : files) {
-                processFile(file, out);
+            for (Path f : stream.filter(f -> f.toString().toLowerCase().endsWith(".xlsx")).collect(Collectors.toList())) {
+                files.put(relativePath(f), f);
             }
         }
+        for (Map.Entry<String, Path> e : files.entrySet()) {
+            if (ring != null && ring.owner(e.getKey()) != shardIndex) continue;
+            List<Dataset> datasets = processFile(e.getValue());
+            out.addAll(datasets);
+            if (ring != null) published.add(new ShardResult(e.getKey(), datasets));
+        }
+        if (ring != null) {
+            ShardCoordinator.publish(shardDirectory, runId, shardIndex, ring.shardCount(), published);
+        }
         LOGGER.info("Processed {} datasets", out.size());
         return out;
     }
 
-    private void processFile(Path file, List<Dataset> out) {
+    private String relativePath(Path file) {
+        return directory.relativize(file).toString().replace(File.separatorChar, '/');
+    }
+
+    private List<Dataset> processFile(Path file) {
         LOGGER.info("Processing file {}", file.getFileName());
-        try (InputStream is = Files.newInputStream(file); Workbook workbook = WorkbookFactory.create(is)) {
-            long fileSize = Files.size(file);
-            Instant lm = Files.getLastModifiedTime(file).toInstant();
+        try {
+            String key = cacheKey(file);
+            List<Dataset> datasets = key == null ? null : cacheGet(key);
+            if (datasets == null) {
+                datasets = readWorkbook(file);
+                if (key != null) cachePut(key, datasets);
+            } else {
+                LOGGER.info("Reusing cached result for {}", file.getFileName());
+            }
+            describe(file, datasets);
+            return datasets;
+        } catch (Exception e) {
+            LOGGER.error("Failed to read file {}", file.getFileName(), e);
+            return Collections.emptyList();
+        }
+    }
 
-            for (int s = 0; s < workbook.getNumberOfSheets(); s++) {
+    // Cache failures never fail the file: the workbook is simply parsed again
+    private String cacheKey(Path file) {
+        if (cache == null) return null;
+        try {
+            return WorkbookFingerprint.of(file, RESULT_VERSION);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Cannot fingerprint {}, cache bypassed", file.getFileName(), e);
+            return null;
+        }
+    }
+
+    private List<Dataset> cacheGet(String key) {
+        try {
+            return cache.get(key);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Cache lookup failed for {}", key, e);
+            return null;
+        }
+    }
+
+    private void cachePut(String key, List<Dataset> datasets) {
+        try {
+            cache.put(key, datasets);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Cache store failed for {}", key, e);
+        }
+    }
+
+    // Path-dependent metadata is applied after extraction so cached results stay path independent.
+    // The first dataset of a sheet keeps the plain "<file> - <sheet>" name even when it is a
+    // named table, so catalog identities do not change when a sheet gains table metadata.
+    private void describe(Path file, List<Dataset> datasets) throws IOException {
+        String fileName = file.getFileName().toString();
+        long fileSize = Files.size(file);
+        Instant lm = Files.getLastModifiedTime(file).toInstant();
+        Set<String> namedSheets = new HashSet<>();
+        for (Dataset ds : datasets) {
+            String sheetName = (String) ds.properties.get("sheet_name");
+            String tableName = (String) ds.properties.get("table_name");
+            int dataRowCount = ((Number) ds.properties.get("data_row_count")).intValue();
+            boolean primary = namedSheets.add(sheetName);
+            ds.name = fileName.replace(".xlsx","") + " - " + sheetName + (primary || tableName == null ? "" : " - " + tableName);
+            ds.description = tableName == null
+                    ? String.format("Sheet '%s' in '%s' (%d rows, %d columns)", sheetName, fileName, dataRowCount+1, ds.fields.size())
+                    : String.format("Table '%s' of sheet '%s' in '%s' (%d rows, %d columns)", tableName, sheetName, fileName, dataRowCount+1, ds.fields.size());
+            ds.properties.put("last_modified", lm.toString());
+            ds.properties.put("file_size_bytes", fileSize);
+        }
+    }
+
+    private List<Dataset> readWorkbook(Path file) throws IOException {
+        List<Dataset> out = new ArrayList<>();
+        // Opened straight as OOXML from the file: the zip is read on demand instead of being
+        // buffered, and WorkbookFactory's format probing (and the HSSF classes) stay unloaded.
+        // Read-only packages are released with revert(); close() would try to save them.
+        OPCPackage pkg;
+        try {
+            pkg = OPCPackage.open(file.toFile(), PackageAccess.READ);
+        } catch (InvalidFormatException e) {
+            throw new IOException("Not an OOXML workbook: " + file.getFileName(), e);
+        }
+        try {
+            XSSFWorkbook workbook = new XSSFWorkbook(pkg);
+            int sheets = workbook.getNumberOfSheets();
+            // regions of every sheet are needed before lineage can name cross-sheet sources
+            SheetExtent[] extents = new SheetExtent[sheets];
+            List<List<TableRegion>> regions = new ArrayList<>(sheets);
+            for (int s = 0; s < sheets; s++) {
                 Sheet sheet = workbook.getSheetAt(s);
-                String sheetName = sheet.getSheetName();
-                int lastRow = sheet.getLastRowNum();
-                Row headerRow = sheet.getRow(0);
-                int cols = headerRow == null ? 0 : headerRow.getLastCellNum();
-                int dataRowCount = Math.max(0, lastRow); // approximate
+                extents[s] = SheetExtent.scan(sheet);
+                regions.add(HeaderDetector.detect(sheet, extents[s]));
+            }
+            FormulaGraph graph = buildFormulaGraph(workbook, extents, regions);
+            LineageNames lineageNames = new LineageNames(workbook, regions);
 
-                if (dataRowCount < 1) {
-                    LOGGER.warn("Skipping sheet {}: only {} rows", sheetName, dataRowCount);
+            for (int s = 0; s < sheets; s++) {
+                Sheet sheet = workbook.getSheetAt(s);
+                String sheetName = sheet.getSheetName();
+                SheetExtent extent = extents[s];
+                if (regions.get(s).isEmpty()) {
+                    LOGGER.warn("Skipping sheet {}: no content", sheetName);
                     continue;
                 }
 
-                Dataset ds = new Dataset();
-                ds.name = file.getFileName().toString().replace(".xlsx","") + " - " + sheetName;
-                ds.description = String.format("Sheet '%s' in '%s' (%d rows, %d columns)", sheetName, file.getFileName().toString(), dataRowCount+1, cols);
-                ds.properties.put("last_modified", lm.toString());
-                ds.properties.put("file_size_bytes", fileSize);
-
-                List<String> headers = extractHeaders(headerRow, cols);
-                // For each column, infer type and profile
-                for (int c = 0; c < headers.size(); c++) {
-                    String header = headers.get(c);
-                    Dataset.Field f = new Dataset.Field();
-                    f.name = header;
-                    f.type = inferType(sheet, c);
-                    Map<String,Object> props = profileField(sheet, c, f.type);
-                    f.properties.putAll(props);
-                    // lineage: basic - find formulas in column and add sourceFields (simplified)
-                    Set<Dataset.ItemReference> refs = parseLineage(sheet, c, headers);
-                    for (Dataset.ItemReference ir : refs) {
-                        f.sourceFields.add(ir);
+                for (int ri = 0; ri < regions.get(s).size(); ri++) {
+                    TableRegion region = regions.get(s).get(ri);
+                    int dataRowCount = region.dataRowCount();
+                    if (dataRowCount < 1) {
+                        LOGGER.warn("Skipping sheet {} region {}: only {} rows", sheetName, region.range(), dataRowCount);
+                        continue;
                     }
-                    ds.addField(f);
-                }
+                    // only the detected data rows are scanned: banners, header rows and footers are left out
+                    List<Row> rows = extent.rows(region.firstDataRow(), region.lastRow);
 
-                out.add(ds);
-            }
+                    Dataset ds = new Dataset();
+                    ds.properties.put("sheet_name", sheetName);
+                    if (region.name != null) ds.properties.put("table_name", region.name);
+                    ds.properties.put("table_range", region.range());
+                    ds.properties.put("header_row_count", region.headerRowCount());
+                    ds.properties.put("used_range", extent.usedRange());
+                    ds.properties.put("data_row_count", dataRowCount);
+                    ds.properties.put("formatted_only_rows", extent.formattedOnlyRows());
 
-        } catch (Exception e) {
-            LOGGER.error("Failed to read file {}", file.getFileName(), e);
+                    List<String> headers = region.headers;
+                    List<Map<String,Object>> profiles = profileColumns(rows, region);
+                    Set<String> upstreamSheets = new TreeSet<>();
+                    // For each column, infer type, attach its profile and its lineage from the graph
+                    for (int c = 0; c < headers.size(); c++) {
+                        String header = headers.get(c);
+                        Dataset.Field f = new Dataset.Field();
+                        f.name = header;
+                        f.type = inferType(rows, region.firstColumn + c);
+                        f.properties.putAll(profiles.get(c));
+                        int node = graph.columnNode(s, ri, region.firstColumn + c);
+                        List<Map<String,String>> upstream = new ArrayList<>();
+                        List<String> names = new ArrayList<>();
+                        if (node >= 0) {
+                            f.sourceFields.addAll(lineageNames.references(graph, graph.directColumns(node)));
+                            for (Dataset.ItemReference ir : lineageNames.references(graph, graph.upstreamColumns(node))) {
+                                Map<String,String> u = new LinkedHashMap<>(ir.datasetId);
+                                u.put("field", ir.fieldName);
+                                upstream.add(u);
+                                if (!ir.datasetId.get("sheet").equals(sheetName)) upstreamSheets.add(ir.datasetId.get("sheet"));
+                            }
+                            for (int n : graph.directNames(node)) names.add(graph.nameOf(n));
+                        }
+                        f.properties.put("upstream_fields", toJson(upstream));
+                        f.properties.put("named_ranges", toJson(names));
+                        ds.addField(f);
+                    }
+                    ds.properties.put("upstream_sheets", toJson(upstreamSheets));
+
+                    out.add(ds);
+                }
+            }
+        } finally {
+            pkg.revert();
         }
+        return out;
     }
 
-    private List<String> extractHeaders(Row headerRow, int cols) {
-        List<String> headers = new ArrayList<>();
-        for (int c = 0; c < cols; c++) {
-            String h = "";
-            if (headerRow != null) {
-                Cell cell = headerRow.getCell(c, Row.MissingCellPolicy.CREATE_NULL_AS_BLANK);
-                h = cell.toString().trim();
-            }
-            if (h.isEmpty()) h = "Column_" + (c+1);
-            headers.add(h);
+    private static String toJson(Object value) {
+        try {
+            return JSON.writeValueAsString(value);
+        } catch (Exception e) {
+            return "[]";
         }
-        return headers;
     }
 
     // Basic inference per requirement (first 10 data rows)
-    private String inferType(Sheet sheet, int colIndex) {
+    private String inferType(List<Row> rows, int colIndex) {
         int checked = 0;
         int longCount = 0, doubleCount = 0, dateCount = 0;
-        for (int r = 1; r <= sheet.getLastRowNum() && checked < 10; r++) {
-            Row row = sheet.getRow(r);
-            if (row == null) continue;
+        for (Row row : rows) {
+            if (checked >= 10) break;
             Cell cell = row.getCell(colIndex, Row.MissingCellPolicy.RETURN_BLANK_AS_NULL);
             if (cell == null) continue;
-            String s = cell.toString().trim();
+            String s = CellValues.text(cell).trim();
             if (s.isEmpty()) continue;
             checked++;
             try { Long.parseLong(s); longCount++; continue; } catch (Exception ignored) {}
@@ -131,96 +317,208 @@ public class ExcelConnection implements Connection {
         return "STRING";
     }
 
-    // Profile up to 1000 rows
-    private Map<String,Object> profileField(Sheet sheet, int colIndex, String inferredType) {
+    // Profile up to 1000 rows in one row-major pass feeding every column's profiler;
+    // rows missing inside the data extent count as nulls without being visited
+    private List<Map<String,Object>> profileColumns(List<Row> rows, TableRegion region) {
         int maxRows = 1000;
+        int cols = region.headers.size();
         long rowCount = 0;
-        long nullCount = 0;
-        Set<String> distinct = new HashSet<>();
-        Double sum = 0.0;
-        Double min = null, max = null;
+        ColumnProfiler[] profilers = new ColumnProfiler[cols];
+        for (int c = 0; c < cols; c++) profilers[c] = new ColumnProfiler();
         List<String[]> previewRows = new ArrayList<>();
-        for (int r = 1; r <= sheet.getLastRowNum() && rowCount < maxRows; r++) {
-            Row row = sheet.getRow(r);
-            if (row == null) { nullCount++; rowCount++; continue; }
-            Cell cell = row.getCell(colIndex, Row.MissingCellPolicy.RETURN_BLANK_AS_NULL);
-            String v = (cell == null) ? "" : cell.toString().trim();
-            if (v.isEmpty()) nullCount++; else distinct.add(v);
+        int expectedRow = region.firstDataRow();
+        for (Row row : rows) {
+            if (rowCount >= maxRows) break;
+            long gap = Math.min(row.getRowNum() - expectedRow, maxRows - rowCount);
+            for (ColumnProfiler p : profilers) p.addNulls(gap);
+            rowCount += gap;
+            expectedRow = row.getRowNum() + 1;
+            if (rowCount >= maxRows) break;
+            for (int c = 0; c < cols; c++) {
+                profilers[c].add(row.getCell(region.firstColumn + c, Row.MissingCellPolicy.RETURN_BLANK_AS_NULL));
+            }
             if (previewRows.size() < 3) {
-                // collect full row preview
-                int cols = row.getLastCellNum();
+                // collect full row preview, limited to the region's columns
                 String[] preview = new String[cols];
                 for (int ci = 0; ci < cols; ci++) {
-                    Cell pc = row.getCell(ci, Row.MissingCellPolicy.RETURN_BLANK_AS_NULL);
-                    preview[ci] = (pc == null) ? "" : pc.toString();
+                    Cell pc = row.getCell(region.firstColumn + ci, Row.MissingCellPolicy.RETURN_BLANK_AS_NULL);
+                    preview[ci] = CellValues.text(pc);
                 }
                 previewRows.add(preview);
             }
-            if (!v.isEmpty()) {
-                try {
-                    double d = Double.parseDouble(v);
-                    sum += d;
-                    if (min == null || d < min) min = d;
-                    if (max == null || d > max) max = d;
-                } catch (Exception ignored) {}
-            }
             rowCount++;
         }
-        Map<String,Object> props = new HashMap<>();
-        double null_pct = rowCount==0?0.0: (double)nullCount / (double)rowCount * 100.0;
-        double distinct_pct = rowCount==0?0.0: (double)distinct.size() / (double)rowCount * 100.0;
-        props.put("null_pct", Math.round(null_pct*100.0)/100.0);
-        props.put("distinct_pct", Math.round(distinct_pct*100.0)/100.0);
-        props.put("min_value", min==null?null:String.format("%s", min));
-        props.put("max_value", max==null?null:String.format("%s", max));
-        props.put("avg_value", (min==null && max==null)?null: (sum / Math.max(1.0, (double)(rowCount - nullCount))));
-        props.put("row_count", rowCount);
-        // sample_preview JSON string
+        // sample_preview JSON string, shared by every column of the sheet
+        String previewJson;
         try {
             com.fasterxml.jackson.databind.ObjectMapper m = new com.fasterxml.jackson.databind.ObjectMapper();
-            String previewJson = m.writeValueAsString(previewRows);
-            props.put("sample_preview", previewJson);
+            previewJson = m.writeValueAsString(previewRows);
         } catch (Exception e) {
-            props.put("sample_preview", "[]");
-        }
-        return props;
-    }
-
-    // Simplified lineage: scan for formulas in the same row (any column) and find references to columns by letter
-    private Set<com.zeenea.sdk.model.Dataset.ItemReference> parseLineage(Sheet sheet, int targetCol, List<String> headers) {
-        Set<com.zeenea.sdk.model.Dataset.ItemReference> refs = new HashSet<>();
-        for (int r = 1; r <= sheet.getLastRowNum(); r++) {
-            Row row = sheet.getRow(r);
-            if (row == null) continue;
-            for (int c = 0; c < row.getLastCellNum(); c++) {
-                Cell cell = row.getCell(c, Row.MissingCellPolicy.RETURN_BLANK_AS_NULL);
-                if (cell == null) continue;
-                if (cell.getCellType() == CellType.FORMULA) {
-                    String formula = cell.getCellFormula();
-                    // crude parse: find tokens like A1, B2, Sheet2!A1, A1:B3
-                    java.util.regex.Pattern p = java.util.regex.Pattern.compile("('.*?'|[A-Za-z0-9_]+)?!?\\$?[A-Za-z]+\\$?\\d+(:\\$?[A-Za-z]+\\$?\\d+)?");
-                    java.util.regex.Matcher m = p.matcher(formula);
-                    while (m.find()) {
-                        String ref = m.group();
-                        // strip sheet if present
-                        if (ref.contains("!")) ref = ref.substring(ref.indexOf("!")+1);
-                        // for ranges A1:B3, take left side A1
-                        if (ref.contains(":")) ref = ref.split(":")[0];
-                        // remove $ and digits to get column letter
-                        String colLetters = ref.replaceAll("[\\$\\d]", "");
-                        int colIdx = columnLetterToIndex(colLetters);
-                        if (colIdx >=0 && colIdx < headers.size()) {
-                            com.zeenea.sdk.model.Dataset.ItemReference ir = new com.zeenea.sdk.model.Dataset.ItemReference();
-                            //ir.datasetId.put("file", sheet.getWorkbook().getWorkbookName()==null? "unknown" : sheet.getWorkbook().getWorkbookName());
-                            ir.datasetId.put("sheet", sheet.getSheetName());
-                            ir.fieldName = headers.get(colIdx);
-                            refs.add(ir);
-                        }
-                    }
+            previewJson = "[]";
+        }
+        List<Map<String,Object>> out = new ArrayList<>(cols);
+        for (ColumnProfiler p : profilers) {
+            Map<String,Object> props = p.toProperties();
+            props.put("sample_preview", previewJson);
+            out.add(props);
+        }
+        return out;
+    }
+
+    // Builds the workbook's formula dependency graph in one pass over the formula cells
+    // and defined names; formulas are parsed into tokens, never evaluated. The parser is only
+    // created (and its classes loaded) once a workbook actually has a formula or name.
+    // Cells and references resolve to the table regions holding their rows, so the same
+    // column of two stacked tables stays two distinct fields.
+    private FormulaGraph buildFormulaGraph(XSSFWorkbook workbook, SheetExtent[] extents, List<List<TableRegion>> regions) {
+        FormulaGraph.Builder graph = new FormulaGraph.Builder();
+        FormulaParsingWorkbook parsing = null;
+        List<? extends Name> names = workbook.getAllNames();
+        for (int i = 0; i < names.size(); i++) {
+            Name name = names.get(i);
+            if (name.isFunctionName() || name.getRefersToFormula() == null) continue;
+            if (parsing == null) parsing = XSSFEvaluationWorkbook.create(workbook);
+            addReferences(graph, workbook, extents, regions, parsing, graph.name(i, name.getNameName()),
+                    name.getRefersToFormula(), FormulaType.NAMEDRANGE, name.getSheetIndex());
+        }
+        for (int s = 0; s < extents.length; s++) {
+            for (Row row : extents[s].contentRows()) {
+                for (Cell cell : row) {
+                    if (cell.getCellType() != CellType.FORMULA) continue;
+                    if (parsing == null) parsing = XSSFEvaluationWorkbook.create(workbook);
+                    int col = cell.getColumnIndex();
+                    int dependent = graph.column(s, regionAt(regions.get(s), cell.getRowIndex(), col), col);
+                    addReferences(graph, workbook, extents, regions, parsing, dependent, cell.getCellFormula(), FormulaType.CELL, s);
+                }
+            }
+        }
+        return graph.build();
+    }
+
+    private void addReferences(FormulaGraph.Builder graph, Workbook workbook, SheetExtent[] extents, List<List<TableRegion>> regions,
+                               FormulaParsingWorkbook parsing, int dependent, String formula, FormulaType type, int sheetIndex) {
+        Ptg[] ptgs;
+        try {
+            ptgs = FormulaParser.parse(formula, parsing, type, sheetIndex);
+        } catch (RuntimeException e) {
+            LOGGER.debug("Falling back to reference scan for formula {}", formula, e);
+            addScannedReferences(graph, workbook, extents, regions, dependent, formula, sheetIndex);
+            return;
+        }
+        for (Ptg ptg : ptgs) {
+            // 3D tokens first: they extend the same-sheet base classes; external workbooks are out of scope
+            if (ptg instanceof Area3DPxg) {
+                Area3DPxg a = (Area3DPxg) ptg;
+                if (a.getExternalWorkbookNumber() > 0) continue;
+                addCells(graph, extents, regions, dependent, workbook.getSheetIndex(a.getSheetName()),
+                        a.getFirstRow(), a.getLastRow(), a.getFirstColumn(), a.getLastColumn());
+            } else if (ptg instanceof Ref3DPxg) {
+                Ref3DPxg r = (Ref3DPxg) ptg;
+                if (r.getExternalWorkbookNumber() > 0) continue;
+                addCells(graph, extents, regions, dependent, workbook.getSheetIndex(r.getSheetName()),
+                        r.getRow(), r.getRow(), r.getColumn(), r.getColumn());
+            } else if (ptg instanceof AreaPtgBase) {
+                AreaPtgBase a = (AreaPtgBase) ptg;
+                addCells(graph, extents, regions, dependent, sheetIndex, a.getFirstRow(), a.getLastRow(), a.getFirstColumn(), a.getLastColumn());
+            } else if (ptg instanceof RefPtgBase) {
+                RefPtgBase r = (RefPtgBase) ptg;
+                addCells(graph, extents, regions, dependent, sheetIndex, r.getRow(), r.getRow(), r.getColumn(), r.getColumn());
+            } else if (ptg instanceof NamePtg) {
+                int index = ((NamePtg) ptg).getIndex();
+                List<? extends Name> names = workbook.getAllNames();
+                if (index < names.size()) graph.edge(dependent, graph.name(index, names.get(index).getNameName()));
+            }
+        }
+    }
+
+    // Each referenced column links to every region whose rows the range overlaps, or to the
+    // bare column when it hits none; whole-row and whole-sheet ranges are clamped to the
+    // columns the target sheet actually uses
+    private void addCells(FormulaGraph.Builder graph, SheetExtent[] extents, List<List<TableRegion>> regions, int dependent,
+                          int sheetIndex, int firstRow, int lastRow, int firstCol, int lastCol) {
+        if (sheetIndex < 0 || sheetIndex >= extents.length) return;
+        List<TableRegion> onSheet = regions.get(sheetIndex);
+        int last = Math.min(lastCol, extents[sheetIndex].lastColumn());
+        for (int c = firstCol; c <= last; c++) {
+            boolean inRegion = false;
+            for (int i = 0; i < onSheet.size(); i++) {
+                TableRegion r = onSheet.get(i);
+                if (r.containsColumn(c) && firstRow <= r.lastRow && lastRow >= r.headerFirstRow) {
+                    graph.edge(dependent, graph.column(sheetIndex, i, c));
+                    inRegion = true;
+                }
+            }
+            if (!inRegion) graph.edge(dependent, graph.column(sheetIndex, -1, c));
+        }
+    }
+
+    // Index of the region holding a cell, or -1
+    private static int regionAt(List<TableRegion> regions, int row, int col) {
+        for (int i = 0; i < regions.size(); i++) {
+            TableRegion r = regions.get(i);
+            if (r.containsColumn(col) && row >= r.headerFirstRow && row <= r.lastRow) return i;
+        }
+        return -1;
+    }
+
+    // Fallback for formulas the parser rejects: crude scan for tokens like A1, Sheet2!A1, A1:B3
+    private void addScannedReferences(FormulaGraph.Builder graph, Workbook workbook, SheetExtent[] extents,
+                                      List<List<TableRegion>> regions, int dependent, String formula, int sheetIndex) {
+        java.util.regex.Matcher m = CELL_REF.matcher(formula);
+        while (m.find()) {
+            String ref = m.group();
+            int target = sheetIndex;
+            if (ref.contains("!")) {
+                String sheetPart = ref.substring(0, ref.indexOf("!")).replace("'", "");
+                if (sheetPart.startsWith("[")) continue;
+                target = workbook.getSheetIndex(sheetPart);
+                ref = ref.substring(ref.indexOf("!")+1);
+            }
+            String[] ends = ref.split(":");
+            String end = ends.length > 1 ? ends[1] : ends[0];
+            int first = columnLetterToIndex(ends[0].replaceAll("[\\$\\d]", ""));
+            int last = columnLetterToIndex(end.replaceAll("[\\$\\d]", ""));
+            int firstRow = Integer.parseInt(ends[0].replaceAll("\\D", "")) - 1;
+            int lastRow = Integer.parseInt(end.replaceAll("\\D", "")) - 1;
+            if (target >= 0) {
+                addCells(graph, extents, regions, dependent, target, Math.min(firstRow, lastRow), Math.max(firstRow, lastRow),
+                        Math.min(first, last), Math.max(first, last));
+            }
+        }
+    }
+
+    /**
+     * Maps graph column nodes to field references: the header of the table region holding
+     * the column, or the column letter when the column lies outside every region.
+     */
+    private static final class LineageNames {
+        private final Workbook workbook;
+        private final List<List<TableRegion>> regions;
+
+        LineageNames(Workbook workbook, List<List<TableRegion>> regions) {
+            this.workbook = workbook;
+            this.regions = regions;
+        }
+
+        List<Dataset.ItemReference> references(FormulaGraph graph, int[] nodes) {
+            Map<String, Dataset.ItemReference> refs = new LinkedHashMap<>();
+            for (int node : nodes) {
+                int sheet = graph.sheetOf(node);
+                int col = graph.columnOf(node);
+                Dataset.ItemReference ir = new Dataset.ItemReference();
+                ir.datasetId.put("sheet", workbook.getSheetName(sheet));
+                int r = graph.regionOf(node);
+                if (r < 0) {
+                    ir.fieldName = CellReference.convertNumToColString(col);
+                } else {
+                    TableRegion region = regions.get(sheet).get(r);
+                    if (region.name != null) ir.datasetId.put("table", region.name);
+                    ir.fieldName = region.headers.get(col - region.firstColumn);
                 }
+                refs.putIfAbsent(ir.datasetId + "/" + ir.fieldName, ir);
             }
+            return new ArrayList<>(refs.values());
         }
-        return refs;
     }
 
     private int columnLetterToIndex(String s) {
@@ -234,6 +532,6 @@ public class ExcelConnection implements Connection {
 
     @Override
     public void close() throws IOException {
-        // no-op
+        if (cache != null) cache.close();
     }
 }
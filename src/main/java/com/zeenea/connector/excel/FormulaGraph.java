@@ -0,0 +1,206 @@
+package com.zeenea.connector.excel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Workbook-wide formula dependency graph. Formula cells are folded into the column of
+ * the table region holding them: a node is either a region column (sheet, region index,
+ * column; region -1 for cells outside every region) or a defined name, and an edge goes
+ * from a dependent node to a node it reads. Edges are stored once, in compressed sparse
+ * row form (primitive offset and target arrays), so lineage queries are plain array walks.
+ */
+final class FormulaGraph {
+    private final Map<Long, Integer> columnIds;
+    private final int[] nodeSheet;   // -1 for name nodes
+    private final int[] nodeRegion;  // -1 for name nodes and cells outside every region
+    private final int[] nodeColumn;  // -1 for name nodes
+    private final String[] nodeName; // null for column nodes
+    private final int[] offsets;     // sources of node n are targets[offsets[n] .. offsets[n + 1])
+    private final int[] targets;
+
+    private FormulaGraph(Map<Long, Integer> columnIds, int[] nodeSheet, int[] nodeRegion, int[] nodeColumn,
+                         String[] nodeName, int[] offsets, int[] targets) {
+        this.columnIds = columnIds;
+        this.nodeSheet = nodeSheet;
+        this.nodeRegion = nodeRegion;
+        this.nodeColumn = nodeColumn;
+        this.nodeName = nodeName;
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    // 16 bits of sheet, 16 bits of region (shifted so -1 fits), 32 bits of column
+    private static long key(int sheet, int region, int column) {
+        return ((long) sheet << 48) | ((long) ((region + 1) & 0xffff) << 32) | (column & 0xffffffffL);
+    }
+
+    /** Node of a region column, or -1 when no formula touches it. */
+    int columnNode(int sheet, int region, int column) {
+        Integer id = columnIds.get(key(sheet, region, column));
+        return id == null ? -1 : id;
+    }
+
+    boolean isName(int node) {
+        return nodeName[node] != null;
+    }
+
+    int sheetOf(int node) {
+        return nodeSheet[node];
+    }
+
+    int regionOf(int node) {
+        return nodeRegion[node];
+    }
+
+    int columnOf(int node) {
+        return nodeColumn[node];
+    }
+
+    String nameOf(int node) {
+        return nodeName[node];
+    }
+
+    int edgeCount() {
+        return targets.length;
+    }
+
+    /** Columns read by {@code node}'s formulas, looking through the defined names they use. */
+    int[] directColumns(int node) {
+        return walk(node, false);
+    }
+
+    /** Defined names read directly by {@code node}'s formulas. */
+    int[] directNames(int node) {
+        int[] out = new int[offsets[node + 1] - offsets[node]];
+        int n = 0;
+        for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+            if (isName(targets[i])) out[n++] = targets[i];
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /** Every column {@code node} ultimately depends on, through any chain of formulas and names. */
+    int[] upstreamColumns(int node) {
+        return walk(node, true);
+    }
+
+    // Breadth-first walk; names are always traversed, columns only when transitive
+    private int[] walk(int start, boolean transitive) {
+        boolean[] seen = new boolean[nodeSheet.length];
+        int[] queue = new int[nodeSheet.length];
+        int head = 0, tail = 0;
+        int[] out = new int[nodeSheet.length];
+        int n = 0;
+        seen[start] = true;
+        queue[tail++] = start;
+        while (head < tail) {
+            int node = queue[head++];
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                int t = targets[i];
+                if (seen[t]) continue;
+                seen[t] = true;
+                if (isName(t)) {
+                    queue[tail++] = t;
+                } else {
+                    out[n++] = t;
+                    if (transitive) queue[tail++] = t;
+                }
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    static final class Builder {
+        private final Map<Long, Integer> columnIds = new HashMap<>();
+        private final Map<Integer, Integer> nameIds = new HashMap<>();
+        private final IntList sheets = new IntList();
+        private final IntList regions = new IntList();
+        private final IntList columns = new IntList();
+        private final List<String> names = new ArrayList<>();
+        private final IntList from = new IntList();
+        private final IntList to = new IntList();
+
+        int column(int sheet, int region, int column) {
+            long key = key(sheet, region, column);
+            Integer id = columnIds.get(key);
+            if (id != null) return id;
+            int node = newNode(sheet, region, column, null);
+            columnIds.put(key, node);
+            return node;
+        }
+
+        /** Node of the defined name at {@code index} in the workbook's name list. */
+        int name(int index, String name) {
+            Integer id = nameIds.get(index);
+            if (id != null) return id;
+            int node = newNode(-1, -1, -1, name);
+            nameIds.put(index, node);
+            return node;
+        }
+
+        private int newNode(int sheet, int region, int column, String name) {
+            sheets.add(sheet);
+            regions.add(region);
+            columns.add(column);
+            names.add(name);
+            return sheets.size() - 1;
+        }
+
+        void edge(int dependent, int source) {
+            if (dependent == source) return;
+            from.add(dependent);
+            to.add(source);
+        }
+
+        FormulaGraph build() {
+            int nodes = sheets.size();
+            int[] offsets = new int[nodes + 1];
+            for (int i = 0; i < from.size(); i++) offsets[from.get(i) + 1]++;
+            for (int n = 0; n < nodes; n++) offsets[n + 1] += offsets[n];
+            int[] fill = Arrays.copyOf(offsets, nodes);
+            int[] targets = new int[from.size()];
+            for (int i = 0; i < from.size(); i++) targets[fill[from.get(i)]++] = to.get(i);
+
+            // sort and drop duplicate edges within each node's slice, compacting in place
+            int[] compact = new int[nodes + 1];
+            int w = 0;
+            for (int n = 0; n < nodes; n++) {
+                int start = offsets[n], end = offsets[n + 1];
+                Arrays.sort(targets, start, end);
+                compact[n] = w;
+                for (int i = start; i < end; i++) {
+                    if (i == start || targets[i] != targets[i - 1]) targets[w++] = targets[i];
+                }
+            }
+            compact[nodes] = w;
+            return new FormulaGraph(columnIds, sheets.toArray(), regions.toArray(), columns.toArray(),
+                    names.toArray(new String[0]), compact, Arrays.copyOf(targets, w));
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int v) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = v;
+        }
+
+        int get(int i) {
+            return values[i];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
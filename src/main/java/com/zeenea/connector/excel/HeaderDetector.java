@@ -0,0 +1,410 @@
+package com.zeenea.connector.excel;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Name;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.AreaReference;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFTable;
+import org.apache.poi.xssf.usermodel.XSSFTableColumn;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Finds the tables of a sheet and their header rows. Defined tables ({@link XSSFTable})
+ * are authoritative, then rectangular named ranges that do not overlap them; the content
+ * neither of them covers is inspected to skip title banners and blank leading rows, merge
+ * multi-row group headers, and split tables separated by blank rows or blank columns. Tables and
+ * named ranges keep their name; heuristic regions are named by their range, except the
+ * sheet's first region, which has no name of its own.
+ */
+final class HeaderDetector {
+    // content rows inspected when looking for a header row
+    static final int HEADER_WINDOW = 20;
+    static final int MAX_HEADER_ROWS = 3;
+    // blank rows that end a table; a single blank row inside the data does not
+    static final int END_GAP = 2;
+    // blank columns that separate tables side by side
+    static final int BAND_GAP = 2;
+
+    private final Sheet sheet;
+    private final SheetExtent extent;
+    private final List<CellRangeAddress> merged;
+    private final DataFormatter formatter = new DataFormatter();
+    // tables and named ranges; their cells are invisible to the heuristic
+    private final List<TableRegion> claimed = new ArrayList<>();
+    // columns the heuristic currently inspects; cells outside them are blank to it
+    private int bandFirst = 0;
+    private int bandLast = Integer.MAX_VALUE;
+
+    private HeaderDetector(Sheet sheet, SheetExtent extent) {
+        this.sheet = sheet;
+        this.extent = extent;
+        this.merged = sheet.getMergedRegions();
+        // formula headers are named after their cached result, like CellValues, not their formula text
+        formatter.setUseCachedValuesForFormulaCells(true);
+    }
+
+    static List<TableRegion> detect(Sheet sheet, SheetExtent extent) {
+        if (extent.isEmpty()) return new ArrayList<>();
+        HeaderDetector d = new HeaderDetector(sheet, extent);
+        d.claimed.addAll(d.definedTables());
+        d.claimed.addAll(d.namedRanges());
+        List<TableRegion> regions = new ArrayList<>(d.claimed);
+        regions.addAll(d.heuristicRegions());
+        regions.sort(Comparator.comparingInt((TableRegion r) -> r.headerFirstRow).thenComparingInt(r -> r.firstColumn));
+        if (!regions.isEmpty() && !d.claimed.contains(regions.get(0))) {
+            TableRegion first = regions.get(0);
+            regions.set(0, new TableRegion(null, first.headerFirstRow, first.headerLastRow, first.firstColumn,
+                    first.lastColumn, first.lastRow, first.headers));
+        }
+        return regions;
+    }
+
+    private List<TableRegion> definedTables() {
+        List<TableRegion> regions = new ArrayList<>();
+        if (!(sheet instanceof XSSFSheet)) return regions;
+        for (XSSFTable table : ((XSSFSheet) sheet).getTables()) {
+            CellReference start = table.getStartCellReference();
+            CellReference end = table.getEndCellReference();
+            int firstCol = start.getCol();
+            int lastCol = end.getCol();
+            int headerLast = start.getRow() + table.getHeaderRowCount() - 1;
+            List<String> headers = new ArrayList<>();
+            List<XSSFTableColumn> columns = table.getColumns();
+            for (int c = firstCol; c <= lastCol; c++) {
+                int i = c - firstCol;
+                String h = i < columns.size() ? columns.get(i).getName() : null;
+                headers.add(h == null || h.trim().isEmpty() ? "Column_" + (i + 1) : h.trim());
+            }
+            regions.add(new TableRegion(table.getName(), start.getRow(), headerLast, firstCol, lastCol,
+                    end.getRow() - table.getTotalsRowCount(), headers));
+        }
+        return regions;
+    }
+
+    // Workbook names referring to a block of at least 2x2 cells on this sheet, clear of the
+    // defined tables, and whose first row reads as a header
+    private List<TableRegion> namedRanges() {
+        List<TableRegion> regions = new ArrayList<>();
+        for (Name name : sheet.getWorkbook().getAllNames()) {
+            if (name.isFunctionName() || name.getNameName().startsWith("_xlnm")) continue;
+            AreaReference area;
+            try {
+                String ref = name.getRefersToFormula();
+                if (ref == null || !AreaReference.isContiguous(ref)) continue;
+                area = new AreaReference(ref, SpreadsheetVersion.EXCEL2007);
+            } catch (RuntimeException e) {
+                continue; // constants, formulas and broken references are not tables
+            }
+            CellReference first = area.getFirstCell();
+            CellReference last = area.getLastCell();
+            if (!sheet.getSheetName().equals(first.getSheetName())) continue;
+            if (last.getRow() - first.getRow() < 1 || last.getCol() - first.getCol() < 1) continue;
+            if (overlaps(claimed, first.getRow(), last.getRow(), first.getCol(), last.getCol())
+                    || overlaps(regions, first.getRow(), last.getRow(), first.getCol(), last.getCol())) continue;
+            if (!namedTableHeader(first.getRow(), first.getCol(), last.getCol())) continue;
+            regions.add(new TableRegion(name.getNameName(), first.getRow(), first.getRow(), first.getCol(), last.getCol(),
+                    Math.min(last.getRow(), extent.lastRow()), headerNames(first.getRow(), first.getRow(), first.getCol(), last.getCol())));
+        }
+        return regions;
+    }
+
+    // The first row of a name is its header when it is mostly text and unlike the row below.
+    // A name over a block of data whose header fills the row above is not claimed: the
+    // heuristic folds it into the region of that header.
+    private boolean namedTableHeader(int rowIndex, int firstCol, int lastCol) {
+        Row header = sheet.getRow(rowIndex);
+        if (header == null || !mostlyText(header, firstCol, lastCol)) return false;
+        Row above = rowIndex > 0 ? sheet.getRow(rowIndex - 1) : null;
+        if (above != null && nonBlank(above, firstCol, lastCol) == lastCol - firstCol + 1
+                && mostlyText(above, firstCol, lastCol)) return false;
+        Row below = sheet.getRow(rowIndex + 1);
+        return below == null || differs(header, below, firstCol, lastCol);
+    }
+
+    private boolean mostlyText(Row row, int firstCol, int lastCol) {
+        int n = nonBlank(row, firstCol, lastCol);
+        return n > 0 && text(row, firstCol, lastCol) * 2 >= n;
+    }
+
+    private static boolean overlaps(List<TableRegion> regions, int firstRow, int lastRow, int firstCol, int lastCol) {
+        for (TableRegion r : regions) {
+            if (firstRow <= r.lastRow && lastRow >= r.headerFirstRow
+                    && firstCol <= r.lastColumn && lastCol >= r.firstColumn) return true;
+        }
+        return false;
+    }
+
+    // Regions found in the content not claimed by tables or names, each named by its range;
+    // every column band is searched on its own
+    private List<TableRegion> heuristicRegions() {
+        List<TableRegion> regions = new ArrayList<>();
+        for (int[] band : columnBands()) {
+            bandFirst = band[0];
+            bandLast = band[1];
+            List<Row> rows = new ArrayList<>();
+            for (Row row : extent.contentRows()) {
+                if (firstNonBlank(row) != null) rows.add(row);
+            }
+            int start = 0;
+            while (start < rows.size()) {
+                boolean primary = regions.isEmpty() && claimed.isEmpty();
+                TableRegion region = regionFrom(rows, start, primary);
+                if (region == null) break;
+                int end = Math.max(region.lastRow, region.headerLastRow);
+                // tables beside or below the primary one need a real header and data, so banners
+                // and footnotes are not reported
+                if (primary || (region.lastColumn > region.firstColumn && region.dataRowCount() > 0)) {
+                    regions.add(new TableRegion(region.range(), region.headerFirstRow,
+                            region.headerLastRow, region.firstColumn, region.lastColumn, region.lastRow, region.headers));
+                }
+                while (start < rows.size() && rows.get(start).getRowNum() <= end) start++;
+            }
+        }
+        bandFirst = 0;
+        bandLast = Integer.MAX_VALUE;
+        return regions;
+    }
+
+    // Column ranges of the unclaimed content, split where at least BAND_GAP adjacent columns
+    // are blank on every row. Only rows with two or more cells count, so a banner or footnote
+    // does not open a band of its own; without such rows the whole sheet is one band.
+    private List<int[]> columnBands() {
+        BitSet used = new BitSet();
+        for (Row row : extent.contentRows()) {
+            if (nonBlank(row) < 2) continue;
+            for (Cell cell : row) {
+                if (!blank(cell)) used.set(cell.getColumnIndex());
+            }
+        }
+        List<int[]> bands = new ArrayList<>();
+        if (used.isEmpty()) {
+            bands.add(new int[]{0, Integer.MAX_VALUE});
+            return bands;
+        }
+        int c = used.nextSetBit(0);
+        while (c >= 0) {
+            int end = c;
+            int next = used.nextSetBit(end + 1);
+            while (next >= 0 && next - end - 1 < BAND_GAP) {
+                end = next;
+                next = used.nextSetBit(end + 1);
+            }
+            bands.add(new int[]{c, end});
+            c = next;
+        }
+        return bands;
+    }
+
+    private TableRegion regionFrom(List<Row> rows, int start, boolean primary) {
+        int windowEnd = Math.min(rows.size(), start + HEADER_WINDOW);
+        int widest = 0;
+        for (int i = start; i < windowEnd; i++) widest = Math.max(widest, nonBlank(rows.get(i)));
+        int minCells = widest >= 2 ? Math.max(2, (widest + 1) / 2) : 1;
+
+        // the header is the first mostly-text row wide enough; the first wide row also qualifies
+        // when it stands out from the row below (numeric year headers such as 2021 | 2022)
+        int h = -1;
+        int wide = -1;
+        for (int i = start; i < windowEnd && h < 0; i++) {
+            Row row = rows.get(i);
+            int n = nonBlank(row);
+            if (n < minCells) continue;
+            if (text(row) * 2 >= n) {
+                h = i;
+            } else if (wide < 0) {
+                wide = i;
+                int[] rowSpan = span(row);
+                if (i + 1 < windowEnd && differs(row, rows.get(i + 1), rowSpan[0], rowSpan[1])) h = i;
+            }
+        }
+        if (h < 0) {
+            if (!primary) return null;
+            // never a one-cell banner when a wider row exists
+            h = wide >= 0 ? wide : start;
+        }
+
+        Row headerRow = rows.get(h);
+        int headerFirst = headerRow.getRowNum();
+        int[] span = span(headerRow);
+        int headerLast = headerFirst;
+        // a header row with horizontally merged group cells continues on the next row
+        while (headerLast - headerFirst + 1 < MAX_HEADER_ROWS && hasHorizontalMerge(headerLast, span[0], span[1])) {
+            Row next = sheet.getRow(headerLast + 1);
+            if (next == null || firstNonBlank(next) == null || text(next) * 2 < nonBlank(next)) break;
+            headerLast++;
+            int[] nextSpan = span(next);
+            span[0] = Math.min(span[0], nextSpan[0]);
+            span[1] = Math.max(span[1], nextSpan[1]);
+        }
+
+        int lastRow = headerLast;
+        for (Row row : extent.rowsAfter(headerLast)) {
+            boolean gap = row.getRowNum() - lastRow - 1 >= END_GAP;
+            // a blank gap inside the data does not end the table unless what follows starts another
+            if (gap && (lastRow == headerLast || startsNewTable(row, sheet.getRow(lastRow), span[0], span[1]))) break;
+            if (hasContent(row, span[0], span[1])) lastRow = row.getRowNum();
+        }
+        return new TableRegion(null, headerFirst, headerLast, span[0], span[1], lastRow,
+                headerNames(headerFirst, headerLast, span[0], span[1]));
+    }
+
+    // A row after a blank gap continues the table only when it lies within its columns, fills
+    // at least half of them, and matches the last data row in value types and styling
+    private boolean startsNewTable(Row row, Row lastData, int firstCol, int lastCol) {
+        int inside = 0;
+        for (Cell cell : row) {
+            if (blank(cell)) continue;
+            int c = cell.getColumnIndex();
+            if (c < firstCol || c > lastCol) return true;
+            inside++;
+        }
+        if (inside * 2 < lastCol - firstCol + 1) return true;
+        return lastData != null && differs(row, lastData, firstCol, lastCol);
+    }
+
+    // True when two rows disagree in some column on value type, number format or boldness;
+    // blank cells are not compared
+    private boolean differs(Row a, Row b, int firstCol, int lastCol) {
+        for (int c = firstCol; c <= lastCol; c++) {
+            Cell x = a.getCell(c);
+            Cell y = b.getCell(c);
+            if (blank(x) || blank(y)) continue;
+            if (valueType(x) != valueType(y)) return true;
+            CellStyle sx = x.getCellStyle();
+            CellStyle sy = y.getCellStyle();
+            if (!Objects.equals(sx.getDataFormatString(), sy.getDataFormatString())) return true;
+            if (bold(sx) != bold(sy)) return true;
+        }
+        return false;
+    }
+
+    private static CellType valueType(Cell cell) {
+        CellType type = cell.getCellType();
+        return type == CellType.FORMULA ? cell.getCachedFormulaResultType() : type;
+    }
+
+    private boolean bold(CellStyle style) {
+        return sheet.getWorkbook().getFontAt(style.getFontIndex()).getBold();
+    }
+
+    // Blank, outside the current column band, or inside a table or named range: the heuristic
+    // only sees unclaimed content
+    private boolean blank(Cell cell) {
+        if (SheetExtent.isBlank(cell)) return true;
+        if (cell.getColumnIndex() < bandFirst || cell.getColumnIndex() > bandLast) return true;
+        for (TableRegion r : claimed) {
+            if (cell.getRowIndex() >= r.headerFirstRow && cell.getRowIndex() <= r.lastRow
+                    && r.containsColumn(cell.getColumnIndex())) return true;
+        }
+        return false;
+    }
+
+    // Column span of the non-blank cells of a row, widened by merged regions starting on it
+    private int[] span(Row row) {
+        int first = Integer.MAX_VALUE, last = -1;
+        for (Cell cell : row) {
+            if (blank(cell)) continue;
+            first = Math.min(first, cell.getColumnIndex());
+            last = Math.max(last, cell.getColumnIndex());
+        }
+        for (CellRangeAddress m : merged) {
+            if (m.getFirstRow() <= row.getRowNum() && m.getLastRow() >= row.getRowNum()
+                    && m.getFirstColumn() <= last && m.getLastColumn() >= first) {
+                first = Math.min(first, m.getFirstColumn());
+                last = Math.max(last, m.getLastColumn());
+            }
+        }
+        return new int[]{Math.max(first, bandFirst), Math.min(last, bandLast)};
+    }
+
+    private boolean hasHorizontalMerge(int rowIndex, int firstCol, int lastCol) {
+        for (CellRangeAddress m : merged) {
+            if (m.getFirstRow() == rowIndex && m.getLastColumn() > m.getFirstColumn()
+                    && m.getFirstColumn() >= firstCol && m.getLastColumn() <= lastCol) return true;
+        }
+        return false;
+    }
+
+    private List<String> headerNames(int headerFirst, int headerLast, int firstCol, int lastCol) {
+        List<String> headers = new ArrayList<>();
+        for (int c = firstCol; c <= lastCol; c++) {
+            List<String> parts = new ArrayList<>();
+            for (int r = headerFirst; r <= headerLast; r++) {
+                String t = mergedText(r, c);
+                if (!t.isEmpty() && (parts.isEmpty() || !parts.get(parts.size() - 1).equals(t))) parts.add(t);
+            }
+            String h = String.join(" / ", parts);
+            headers.add(h.isEmpty() ? "Column_" + (c - firstCol + 1) : h);
+        }
+        return headers;
+    }
+
+    // Text of a cell, taken from the top-left cell when it lies inside a merged region
+    private String mergedText(int r, int c) {
+        for (CellRangeAddress m : merged) {
+            if (m.isInRange(r, c)) {
+                r = m.getFirstRow();
+                c = m.getFirstColumn();
+                break;
+            }
+        }
+        Row row = sheet.getRow(r);
+        Cell cell = row == null ? null : row.getCell(c, Row.MissingCellPolicy.RETURN_BLANK_AS_NULL);
+        if (cell == null || cell.getCellType() == CellType.FORMULA && CellValues.text(cell).isEmpty()) return "";
+        return formatter.formatCellValue(cell).trim();
+    }
+
+    private boolean hasContent(Row row, int firstCol, int lastCol) {
+        for (Cell cell : row) {
+            int c = cell.getColumnIndex();
+            if (c >= firstCol && c <= lastCol && !blank(cell)) return true;
+        }
+        return false;
+    }
+
+    private Cell firstNonBlank(Row row) {
+        for (Cell cell : row) {
+            if (!blank(cell)) return cell;
+        }
+        return null;
+    }
+
+    private int nonBlank(Row row) {
+        return nonBlank(row, 0, Integer.MAX_VALUE);
+    }
+
+    private int nonBlank(Row row, int firstCol, int lastCol) {
+        int n = 0;
+        for (Cell cell : row) {
+            int c = cell.getColumnIndex();
+            if (c >= firstCol && c <= lastCol && !blank(cell)) n++;
+        }
+        return n;
+    }
+
+    private int text(Row row) {
+        return text(row, 0, Integer.MAX_VALUE);
+    }
+
+    private int text(Row row, int firstCol, int lastCol) {
+        int n = 0;
+        for (Cell cell : row) {
+            int c = cell.getColumnIndex();
+            if (c >= firstCol && c <= lastCol && valueType(cell) == CellType.STRING && !blank(cell)) n++;
+        }
+        return n;
+    }
+}
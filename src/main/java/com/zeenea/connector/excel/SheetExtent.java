@@ -0,0 +1,133 @@
+package com.zeenea.connector.excel;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Sparse view of a sheet: only rows that physically exist and hold at least one
+ * non-blank cell are kept, so scans cost what the content costs rather than what
+ * {@link Sheet#getLastRowNum()} reports (a single styled cell at the bottom of the
+ * grid would otherwise make every pass walk a million empty rows).
+ */
+final class SheetExtent {
+    private final List<Row> contentRows;
+    private final int formattedOnlyRows;
+    private final int firstRow;
+    private final int lastRow;
+    private final int firstColumn;
+    private final int lastColumn;
+
+    private SheetExtent(List<Row> contentRows, int formattedOnlyRows, int firstColumn, int lastColumn) {
+        this.contentRows = contentRows;
+        this.formattedOnlyRows = formattedOnlyRows;
+        this.firstRow = contentRows.isEmpty() ? -1 : contentRows.get(0).getRowNum();
+        this.lastRow = contentRows.isEmpty() ? -1 : contentRows.get(contentRows.size() - 1).getRowNum();
+        this.firstColumn = firstColumn;
+        this.lastColumn = lastColumn;
+    }
+
+    /**
+     * Walks the physically present rows and cells of the sheet once. Rows that exist
+     * only because of formatting (styled but blank cells) are counted, not kept.
+     */
+    static SheetExtent scan(Sheet sheet) {
+        List<Row> rows = new ArrayList<>();
+        int formattedOnly = 0;
+        int firstCol = Integer.MAX_VALUE;
+        int lastCol = -1;
+        for (Row row : sheet) {
+            int rowFirst = Integer.MAX_VALUE;
+            int rowLast = -1;
+            for (Cell cell : row) {
+                if (isBlank(cell)) continue;
+                int c = cell.getColumnIndex();
+                if (c < rowFirst) rowFirst = c;
+                if (c > rowLast) rowLast = c;
+            }
+            if (rowLast < 0) {
+                formattedOnly++;
+                continue;
+            }
+            rows.add(row);
+            firstCol = Math.min(firstCol, rowFirst);
+            lastCol = Math.max(lastCol, rowLast);
+        }
+        // XSSF and HSSF both iterate rows in ascending order; keep the invariant explicit
+        // because the binary-searched row lookups rely on it.
+        rows.sort((a, b) -> Integer.compare(a.getRowNum(), b.getRowNum()));
+        return new SheetExtent(Collections.unmodifiableList(rows), formattedOnly,
+                lastCol < 0 ? -1 : firstCol, lastCol);
+    }
+
+    static boolean isBlank(Cell cell) {
+        if (cell == null) return true;
+        CellType type = cell.getCellType();
+        if (type == CellType.BLANK) return true;
+        return type == CellType.STRING && cell.getStringCellValue().trim().isEmpty();
+    }
+
+    /** Rows holding content, in ascending row order. */
+    List<Row> contentRows() {
+        return contentRows;
+    }
+
+    /** Content rows strictly below {@code rowIndex}, in ascending row order. */
+    List<Row> rowsAfter(int rowIndex) {
+        return contentRows.subList(firstIndexAbove(rowIndex), contentRows.size());
+    }
+
+    /** Content rows from {@code fromRow} to {@code toRow} inclusive, in ascending row order. */
+    List<Row> rows(int fromRow, int toRow) {
+        int from = firstIndexAbove(fromRow - 1);
+        return contentRows.subList(from, Math.max(from, firstIndexAbove(toRow)));
+    }
+
+    // Index of the first content row whose row number is greater than rowIndex
+    private int firstIndexAbove(int rowIndex) {
+        int lo = 0, hi = contentRows.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (contentRows.get(mid).getRowNum() <= rowIndex) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    boolean isEmpty() {
+        return contentRows.isEmpty();
+    }
+
+    int formattedOnlyRows() {
+        return formattedOnlyRows;
+    }
+
+    /** 0-based index of the first row with content, or -1 when the sheet is empty. */
+    int firstRow() {
+        return firstRow;
+    }
+
+    /** 0-based index of the last row with content, or -1 when the sheet is empty. */
+    int lastRow() {
+        return lastRow;
+    }
+
+    int firstColumn() {
+        return firstColumn;
+    }
+
+    int lastColumn() {
+        return lastColumn;
+    }
+
+    /** True used range in A1 notation (e.g. {@code A1:C42}), or null when the sheet is empty. */
+    String usedRange() {
+        if (isEmpty()) return null;
+        return new CellRangeAddress(firstRow, lastRow, firstColumn, lastColumn).formatAsString();
+    }
+}
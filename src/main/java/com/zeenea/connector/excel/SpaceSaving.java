@@ -0,0 +1,56 @@
+package com.zeenea.connector.excel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy-hitter sketch: keeps at most {@code capacity} counters, so the
+ * top-K of an unbounded stream is tracked in fixed memory. When a new item arrives
+ * with all counters taken, it replaces the smallest one and inherits its count as
+ * over-estimation error.
+ */
+final class SpaceSaving {
+    private final int capacity;
+    private final Map<String, long[]> counters = new HashMap<>(); // {count, error}
+
+    SpaceSaving(int capacity) {
+        this.capacity = capacity;
+    }
+
+    void add(String item) {
+        long[] c = counters.get(item);
+        if (c != null) {
+            c[0]++;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(item, new long[]{1, 0});
+            return;
+        }
+        String minKey = null;
+        long min = Long.MAX_VALUE;
+        for (Map.Entry<String, long[]> e : counters.entrySet()) {
+            if (e.getValue()[0] < min) {
+                min = e.getValue()[0];
+                minKey = e.getKey();
+            }
+        }
+        counters.remove(minKey);
+        counters.put(item, new long[]{min + 1, min});
+    }
+
+    /** Up to {@code k} items by decreasing estimated count, ties broken by item. */
+    List<Map.Entry<String, Long>> top(int k) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>();
+        for (Map.Entry<String, long[]> e : counters.entrySet()) {
+            entries.add(Map.entry(e.getKey(), e.getValue()[0]));
+        }
+        entries.sort((a, b) -> {
+            int byCount = Long.compare(b.getValue(), a.getValue());
+            return byCount != 0 ? byCount : a.getKey().compareTo(b.getKey());
+        });
+        return entries.size() > k ? entries.subList(0, k) : entries;
+    }
+}
@@ -0,0 +1,52 @@
+package com.zeenea.connector.excel;
+
+import org.apache.poi.ss.util.CellRangeAddress;
+
+import java.util.List;
+
+/**
+ * A table found on a sheet: its header rows, column span and last data row (all
+ * 0-based and inclusive). Each region becomes one {@code Dataset}.
+ */
+final class TableRegion {
+    /** Table or named-range name, or null for the primary region of the sheet. */
+    final String name;
+    final int headerFirstRow;
+    final int headerLastRow;
+    final int firstColumn;
+    final int lastColumn;
+    final int lastRow;
+    final List<String> headers;
+
+    TableRegion(String name, int headerFirstRow, int headerLastRow, int firstColumn, int lastColumn,
+                int lastRow, List<String> headers) {
+        this.name = name;
+        this.headerFirstRow = headerFirstRow;
+        this.headerLastRow = headerLastRow;
+        this.firstColumn = firstColumn;
+        this.lastColumn = lastColumn;
+        this.lastRow = lastRow;
+        this.headers = headers;
+    }
+
+    int firstDataRow() {
+        return headerLastRow + 1;
+    }
+
+    int dataRowCount() {
+        return Math.max(0, lastRow - headerLastRow);
+    }
+
+    int headerRowCount() {
+        return headerLastRow - headerFirstRow + 1;
+    }
+
+    boolean containsColumn(int column) {
+        return column >= firstColumn && column <= lastColumn;
+    }
+
+    /** Header and data rows in A1 notation, e.g. {@code C3:F40}. */
+    String range() {
+        return new CellRangeAddress(headerFirstRow, Math.max(headerFirstRow, lastRow), firstColumn, lastColumn).formatAsString();
+    }
+}
@@ -0,0 +1,43 @@
+package com.zeenea.connector.excel.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.zeenea.sdk.model.Dataset;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Compact single-line JSON encoding of datasets, used for cache entries and shard files.
+ * Property values are declared as {@code Object}, so plain JSON would bring a {@code Long}
+ * back as an {@code Integer}; they carry their Java type whenever it is not the one JSON
+ * decodes to naturally (String, Integer, Double and Boolean stay untagged), and decoded
+ * datasets equal the ones that were encoded.
+ */
+public final class DatasetCodec {
+    private static final ObjectMapper MAPPER = new ObjectMapper().activateDefaultTyping(
+            BasicPolymorphicTypeValidator.builder().allowIfSubType("java.lang.").allowIfSubType("java.util.").build(),
+            ObjectMapper.DefaultTyping.JAVA_LANG_OBJECT);
+    private static final TypeReference<List<Dataset>> DATASETS = new TypeReference<>() {};
+
+    private DatasetCodec() {
+    }
+
+    static byte[] encode(List<Dataset> datasets) throws IOException {
+        return encode(datasets, DATASETS);
+    }
+
+    static List<Dataset> decode(byte[] bytes) throws IOException {
+        return decode(bytes, DATASETS);
+    }
+
+    /** Encodes any structure holding datasets; {@code type} must be its declared type. */
+    public static <T> byte[] encode(T value, TypeReference<T> type) throws IOException {
+        return MAPPER.writerFor(type).writeValueAsBytes(value);
+    }
+
+    public static <T> T decode(byte[] bytes, TypeReference<T> type) throws IOException {
+        return MAPPER.readValue(bytes, type);
+    }
+}
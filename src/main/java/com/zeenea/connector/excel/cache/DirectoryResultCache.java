@@ -0,0 +1,68 @@
+package com.zeenea.connector.excel.cache;
+
+import com.zeenea.sdk.model.Dataset;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * One file per key under a (possibly shared) directory. Entries are written to a
+ * temporary file and moved into place, so concurrent nodes never see a partial entry.
+ */
+public class DirectoryResultCache implements ResultCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryResultCache.class);
+    private final Path root;
+
+    public DirectoryResultCache(Path root) {
+        this.root = root;
+    }
+
+    @Override
+    public List<Dataset> get(String key) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(entry(key));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        try {
+            return DatasetCodec.decode(bytes);
+        } catch (IOException e) {
+            LOGGER.warn("Ignoring unreadable cache entry {}", key, e);
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String key, List<Dataset> datasets) throws IOException {
+        Path target = entry(key);
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), key, ".tmp");
+        try {
+            Files.write(tmp, DatasetCodec.encode(datasets));
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private Path entry(String key) {
+        return root.resolve(key.substring(0, 2)).resolve(key + ".json");
+    }
+
+    @Override
+    public void close() {
+        // no-op
+    }
+}
@@ -0,0 +1,121 @@
+package com.zeenea.connector.excel.cache;
+
+import com.zeenea.sdk.model.Dataset;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Embedded key-value store in a single append-only file, one {@code key<TAB>json}
+ * record per line. An in-memory index of value offsets is built lazily and extended
+ * with records appended by other processes when a lookup misses. Appends are done
+ * under an exclusive file lock; a trailing record without its newline is still being
+ * written and is picked up by a later refresh. File locks are held per JVM, so instances
+ * of one JVM sharing a store first take a JVM-wide lock for its canonical path.
+ */
+public class KeyValueFileResultCache implements ResultCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(KeyValueFileResultCache.class);
+    private static final Map<Path, ReentrantLock> APPEND_LOCKS = new ConcurrentHashMap<>();
+    private final Path file;
+    private final Map<String, long[]> index = new HashMap<>();
+    private long indexedUpTo;
+
+    public KeyValueFileResultCache(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public synchronized List<Dataset> get(String key) throws IOException {
+        long[] loc = index.get(key);
+        if (loc == null) {
+            refresh();
+            loc = index.get(key);
+            if (loc == null) return null;
+        }
+        byte[] bytes = new byte[(int) loc[1]];
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+            long pos = loc[0];
+            while (buf.hasRemaining()) {
+                int n = ch.read(buf, pos);
+                if (n < 0) throw new IOException("Truncated cache record for " + key);
+                pos += n;
+            }
+        }
+        try {
+            return DatasetCodec.decode(bytes);
+        } catch (IOException e) {
+            LOGGER.warn("Ignoring unreadable cache record {}", key, e);
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized void put(String key, List<Dataset> datasets) throws IOException {
+        byte[] keyBytes = (key + "\t").getBytes(StandardCharsets.UTF_8);
+        byte[] value = DatasetCodec.encode(datasets);
+        ByteBuffer record = ByteBuffer.allocate(keyBytes.length + value.length + 1);
+        record.put(keyBytes).put(value).put((byte) '\n').flip();
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        ReentrantLock jvmLock = APPEND_LOCKS.computeIfAbsent(parent.toRealPath().resolve(file.getFileName()),
+                p -> new ReentrantLock());
+        jvmLock.lock();
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            ch.lock(); // released when the channel closes
+            long pos = ch.size();
+            while (record.hasRemaining()) {
+                pos += ch.write(record, pos);
+            }
+        } finally {
+            jvmLock.unlock();
+        }
+        refresh();
+    }
+
+    /** Indexes complete records appended since the last refresh. */
+    private void refresh() throws IOException {
+        if (!Files.exists(file)) return;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() <= indexedUpTo) return;
+            ch.position(indexedUpTo);
+            InputStream in = new BufferedInputStream(Channels.newInputStream(ch));
+            ByteArrayOutputStream key = new ByteArrayOutputStream();
+            long pos = indexedUpTo;
+            long valueStart = -1;
+            int b;
+            while ((b = in.read()) >= 0) {
+                pos++;
+                if (valueStart < 0) {
+                    if (b == '\t') valueStart = pos; else key.write(b);
+                } else if (b == '\n') {
+                    index.put(key.toString(StandardCharsets.UTF_8), new long[]{valueStart, pos - 1 - valueStart});
+                    indexedUpTo = pos;
+                    key.reset();
+                    valueStart = -1;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        // no-op
+    }
+}
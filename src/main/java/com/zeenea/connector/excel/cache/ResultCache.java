@@ -0,0 +1,20 @@
+package com.zeenea.connector.excel.cache;
+
+import com.zeenea.sdk.model.Dataset;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Content-addressed store for the datasets extracted from one workbook.
+ * Keys come from {@link WorkbookFingerprint}, so identical workbooks share an entry
+ * whatever their path, and a store on a shared location is reused across nodes.
+ */
+public interface ResultCache extends Closeable {
+
+    /** Returns the cached datasets for {@code key}, or null on a miss. */
+    List<Dataset> get(String key) throws IOException;
+
+    void put(String key, List<Dataset> datasets) throws IOException;
+}
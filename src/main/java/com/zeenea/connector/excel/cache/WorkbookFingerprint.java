@@ -0,0 +1,55 @@
+package com.zeenea.connector.excel.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Content key of an .xlsx workbook. Only the zip central directory is read: the name,
+ * CRC-32 and size of every part are already stored there, so two copies of the same
+ * workbook get the same key without their parts being inflated.
+ */
+public final class WorkbookFingerprint {
+
+    private WorkbookFingerprint() {
+    }
+
+    /**
+     * @param settingsVersion version of the extraction logic; bumping it invalidates
+     *                        every entry produced by older connector builds
+     */
+    public static String of(Path file, int settingsVersion) throws IOException {
+        MessageDigest digest = sha256();
+        ByteBuffer buf = ByteBuffer.allocate(Long.BYTES * 2);
+        digest.update(("xlsx-v" + settingsVersion).getBytes(StandardCharsets.UTF_8));
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            List<ZipEntry> entries = new ArrayList<>(Collections.list(zip.entries()));
+            entries.sort(Comparator.comparing(ZipEntry::getName));
+            for (ZipEntry entry : entries) {
+                digest.update(entry.getName().getBytes(StandardCharsets.UTF_8));
+                buf.clear();
+                buf.putLong(entry.getCrc()).putLong(entry.getSize());
+                digest.update(buf.array());
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,4 +1,3 @@
-
 package com.zeenea.connector.excel.demo;
 
 import java.io.File;
@@ -6,31 +5,119 @@ import java.io.File;
 import com.zeenea.sdk.connector.Configuration;
 import com.zeenea.sdk.connector.Connector;
 import com.zeenea.connector.excel.ExcelConnector;
+import com.zeenea.connector.excel.shard.ShardCoordinator;
 import com.zeenea.sdk.model.Dataset;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Runs the connector on a directory and writes output.json.
+ * <pre>
+ *   LocalRunner [dir]                                 single JVM
+ *   LocalRunner [dir] --workers N [--shard-dir D]     N worker JVMs, merged here
+ *   LocalRunner [dir] --shard I/N --shard-dir D       one worker (spawned by the above)
+ * </pre>
+ */
 public class LocalRunner {
     private static final Logger LOGGER = LoggerFactory.getLogger(LocalRunner.class);
+    private static final Duration SHARD_TIMEOUT = Duration.ofHours(1);
 
     public static void main(String[] args) throws Exception {
-        String dir = args.length > 0 ? args[0] : "./test-data";
+        String dir = "./test-data";
+        String shard = null;
+        String shardDir = null;
+        int workers = 0;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--workers": workers = Integer.parseInt(args[++i]); break;
+                case "--shard": shard = args[++i]; break;
+                case "--shard-dir": shardDir = args[++i]; break;
+                default: dir = args[i];
+            }
+        }
+
+        if (shard != null) {
+            runWorker(dir, shard, shardDir);
+        } else if (workers > 0) {
+            Path shardPath = shardDir != null ? Paths.get(shardDir) : Files.createTempDirectory("excel-shards-");
+            writeOutput(runSharded(dir, workers, shardPath));
+        } else {
+            writeOutput(runSingle(dir));
+        }
+    }
+
+    private static List<Dataset> runSingle(String dir) throws Exception {
         Configuration config = new Configuration();
         config.put("directoryPath", dir);
         Connector connector = new ExcelConnector();
         try (var conn = connector.open(config)) {
-            List<Dataset> ds = conn.synchronize();
-            com.fasterxml.jackson.databind.ObjectMapper m = new com.fasterxml.jackson.databind.ObjectMapper();
-            m.findAndRegisterModules();
-            LOGGER.info("Writing {} datasets to output.json", ds.size());
+            return conn.synchronize();
+        } catch (Exception e) {
+            LOGGER.error("Error during synchronization", e);
+            throw e;
+        }
+    }
+
+    private static void runWorker(String dir, String shard, String shardDir) throws Exception {
+        if (shardDir == null) throw new IllegalArgumentException("--shard requires --shard-dir");
+        String[] parts = shard.split("/");
+        if (parts.length != 2) throw new IllegalArgumentException("--shard must be I/N, got " + shard);
+        try {
+            int index = Integer.parseInt(parts[0].trim());
+            int count = Integer.parseInt(parts[1].trim());
+            if (count < 1 || index < 0 || index >= count) {
+                throw new IllegalArgumentException("--shard I/N needs N >= 1 and I in [0, N), got " + shard);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--shard I and N must be integers, got " + shard, e);
+        }
+        Configuration config = new Configuration();
+        config.put("directoryPath", dir);
+        config.put("shardIndex", parts[0].trim());
+        config.put("shardCount", parts[1].trim());
+        config.put("shardDirectory", shardDir);
+        try (var conn = new ExcelConnector().open(config)) {
+            conn.synchronize();
+        }
+    }
+
+    // Spawns one JVM per shard on the current classpath and merges their published results
+    private static List<Dataset> runSharded(String dir, int workers, Path shardDir) throws Exception {
+        ShardCoordinator.startRun(shardDir);
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        List<Process> processes = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    LocalRunner.class.getName(), dir,
+                    "--shard", i + "/" + workers, "--shard-dir", shardDir.toString())
+                    .inheritIO()
+                    .start());
+        }
+        for (int i = 0; i < workers; i++) {
+            int code = processes.get(i).waitFor();
+            if (code != 0) throw new IllegalStateException("Shard worker " + i + " exited with " + code);
+        }
+        return ShardCoordinator.merge(shardDir, workers, SHARD_TIMEOUT);
+    }
+
+    private static void writeOutput(List<Dataset> ds) throws Exception {
+        com.fasterxml.jackson.databind.ObjectMapper m = new com.fasterxml.jackson.databind.ObjectMapper();
+        m.findAndRegisterModules();
+        LOGGER.info("Writing {} datasets to output.json", ds.size());
+        try {
             m.writerWithDefaultPrettyPrinter()
                     .writeValue(new File("output.json"), ds);
-            LOGGER.info("Successfully wrote output.json");
         } catch (Exception e) {
-            LOGGER.error("Error during synchronization or writing output", e);
+            LOGGER.error("Error writing output", e);
             throw e;
         }
+        LOGGER.info("Successfully wrote output.json");
     }
 }
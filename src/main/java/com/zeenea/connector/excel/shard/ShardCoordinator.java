@@ -0,0 +1,157 @@
+package com.zeenea.connector.excel.shard;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.zeenea.connector.excel.cache.DatasetCodec;
+import com.zeenea.sdk.model.Dataset;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+/**
+ * Coordination of sharded synchronization through a shared directory. The coordinator
+ * starts a run by writing a fresh run id to {@code run.id}; workers read it and publish
+ * their results as {@code shard-<run>-<i>-of-<n>.json}, written to a temporary file and
+ * moved into place, so the presence of the file means the shard of that run is complete.
+ * The coordinator waits for all N files of its run (files left by earlier runs never
+ * count) and merges them into one stream ordered by relative path, identical to what a
+ * single connection would return.
+ */
+public final class ShardCoordinator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShardCoordinator.class);
+    private static final TypeReference<List<ShardResult>> RESULTS = new TypeReference<>() {};
+    private static final long POLL_MILLIS = 200;
+    private static final String RUN_FILE = "run.id";
+
+    private ShardCoordinator() {
+    }
+
+    public static Path shardFile(Path shardDirectory, String runId, int shardIndex, int shardCount) {
+        return shardDirectory.resolve("shard-" + runId + "-" + shardIndex + "-of-" + shardCount + ".json");
+    }
+
+    /**
+     * Starts a new run: removes shard files left by previous runs and writes a fresh run id.
+     * Call before starting the workers, which pick the id up when they synchronize.
+     */
+    public static String startRun(Path shardDirectory) throws IOException {
+        Files.createDirectories(shardDirectory);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(shardDirectory, "shard-*.json")) {
+            for (Path p : stream) Files.deleteIfExists(p);
+        }
+        String runId = UUID.randomUUID().toString();
+        Path tmp = Files.createTempFile(shardDirectory, "run-", ".tmp");
+        try {
+            Files.write(tmp, runId.getBytes(StandardCharsets.UTF_8));
+            move(tmp, shardDirectory.resolve(RUN_FILE));
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return runId;
+    }
+
+    /**
+     * Id of the run currently started in {@code shardDirectory}.
+     *
+     * @throws IOException when no run has been started there
+     */
+    public static String currentRun(Path shardDirectory) throws IOException {
+        Path runFile = shardDirectory.resolve(RUN_FILE);
+        if (!Files.exists(runFile)) {
+            throw new IOException("No sharded run started in " + shardDirectory + "; call ShardCoordinator.startRun first");
+        }
+        return new String(Files.readAllBytes(runFile), StandardCharsets.UTF_8).trim();
+    }
+
+    /** Publishes a worker's results for run {@code runId}; results must be sorted by relative path. */
+    public static void publish(Path shardDirectory, String runId, int shardIndex, int shardCount, List<ShardResult> results) throws IOException {
+        Files.createDirectories(shardDirectory);
+        Path target = shardFile(shardDirectory, runId, shardIndex, shardCount);
+        Path tmp = Files.createTempFile(shardDirectory, "shard-" + shardIndex + "-", ".tmp");
+        try {
+            Files.write(tmp, DatasetCodec.encode(results, RESULTS));
+            move(tmp, target);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        LOGGER.info("Published shard {}/{} of run {} ({} files)", shardIndex, shardCount, runId, results.size());
+    }
+
+    private static void move(Path tmp, Path target) throws IOException {
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Waits until every shard of the current run has published, then merges the per-shard
+     * streams by relative path.
+     *
+     * @throws IOException when no run was started, when a newer run replaces it, or when
+     *                     some shards have not published within {@code timeout}
+     */
+    public static List<Dataset> merge(Path shardDirectory, int shardCount, Duration timeout) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        String runId = currentRun(shardDirectory);
+        List<Integer> missing = missingShards(shardDirectory, runId, shardCount);
+        while (!missing.isEmpty()) {
+            if (System.nanoTime() > deadline) {
+                throw new IOException("Shards " + missing + " of " + shardCount + " did not publish within " + timeout);
+            }
+            Thread.sleep(POLL_MILLIS);
+            if (!runId.equals(currentRun(shardDirectory))) {
+                throw new IOException("Run " + runId + " was replaced by a newer run in " + shardDirectory);
+            }
+            missing = missingShards(shardDirectory, runId, shardCount);
+        }
+
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(Comparator.comparing(Cursor::relativePath));
+        for (int i = 0; i < shardCount; i++) {
+            List<ShardResult> results = DatasetCodec.decode(Files.readAllBytes(shardFile(shardDirectory, runId, i, shardCount)), RESULTS);
+            if (!results.isEmpty()) heads.add(new Cursor(results));
+        }
+        List<Dataset> out = new ArrayList<>();
+        while (!heads.isEmpty()) {
+            Cursor c = heads.poll();
+            out.addAll(c.results.get(c.pos).datasets);
+            if (++c.pos < c.results.size()) heads.add(c);
+        }
+        LOGGER.info("Merged {} shards into {} datasets", shardCount, out.size());
+        return out;
+    }
+
+    private static List<Integer> missingShards(Path shardDirectory, String runId, int shardCount) {
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < shardCount; i++) {
+            if (!Files.exists(shardFile(shardDirectory, runId, i, shardCount))) missing.add(i);
+        }
+        return missing;
+    }
+
+    private static final class Cursor {
+        final List<ShardResult> results;
+        int pos;
+
+        Cursor(List<ShardResult> results) {
+            this.results = results;
+        }
+
+        String relativePath() {
+            return results.get(pos).relativePath;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.zeenea.connector.excel.shard;
+
+import com.zeenea.sdk.model.Dataset;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Datasets extracted from one file by a shard worker, keyed by the file's path
+ * relative to the scanned directory (the merge order).
+ */
+public class ShardResult {
+    public String relativePath;
+    public List<Dataset> datasets = new ArrayList<>();
+
+    public ShardResult() {
+    }
+
+    public ShardResult(String relativePath, List<Dataset> datasets) {
+        this.relativePath = relativePath;
+        this.datasets = datasets;
+    }
+}
@@ -0,0 +1,66 @@
+package com.zeenea.connector.excel.shard;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Consistent-hash ring assigning files to shards by relative path. Each shard owns
+ * {@link #VIRTUAL_NODES} points on the ring so the split stays even, and growing
+ * the ring from N to N+1 shards only moves about 1/(N+1) of the files.
+ * The hash is fixed (FNV-1a with a murmur finalizer) so every JVM agrees on ownership.
+ */
+public final class ShardRing {
+    static final int VIRTUAL_NODES = 128;
+    private final int shardCount;
+    private final long[] points;
+    private final int[] owners;
+
+    public ShardRing(int shardCount) {
+        if (shardCount < 1) throw new IllegalArgumentException("shardCount must be >= 1");
+        this.shardCount = shardCount;
+        int n = shardCount * VIRTUAL_NODES;
+        long[] keyed = new long[n];
+        int[] shardOf = new int[n];
+        Integer[] order = new Integer[n];
+        for (int s = 0, i = 0; s < shardCount; s++) {
+            for (int v = 0; v < VIRTUAL_NODES; v++, i++) {
+                keyed[i] = hash("shard-" + s + "#" + v);
+                shardOf[i] = s;
+                order[i] = i;
+            }
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(keyed[a], keyed[b]));
+        this.points = new long[n];
+        this.owners = new int[n];
+        for (int i = 0; i < n; i++) {
+            points[i] = keyed[order[i]];
+            owners[i] = shardOf[order[i]];
+        }
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    /** Shard owning {@code key}: the first ring point at or after its hash, wrapping around. */
+    public int owner(String key) {
+        long h = hash(key);
+        int i = Arrays.binarySearch(points, h);
+        if (i < 0) i = -i - 1;
+        return owners[i == points.length ? 0 : i];
+    }
+
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
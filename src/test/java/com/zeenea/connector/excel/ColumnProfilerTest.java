@@ -0,0 +1,115 @@
+package com.zeenea.connector.excel;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for ColumnProfiler and its sketches
+ */
+public class ColumnProfilerTest {
+
+    private Map<String, Object> profile(Object... values) throws Exception {
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet("Profile");
+            ColumnProfiler profiler = new ColumnProfiler();
+            for (int i = 0; i < values.length; i++) {
+                Row row = sheet.createRow(i);
+                Object v = values[i];
+                if (v == null) {
+                    profiler.add(null);
+                    continue;
+                }
+                Cell cell = row.createCell(0);
+                if (v instanceof String) cell.setCellValue((String) v);
+                else if (v instanceof Boolean) cell.setCellValue((Boolean) v);
+                else cell.setCellValue(((Number) v).doubleValue());
+                profiler.add(cell);
+            }
+            return profiler.toProperties();
+        }
+    }
+
+    @Test
+    public void testSignature() {
+        assertEquals("AAA-999", ColumnProfiler.signature("ABC-123"));
+        assertEquals("AA 9", ColumnProfiler.signature("xy 7"));
+        assertEquals(32, ColumnProfiler.signature("x".repeat(100)).length());
+    }
+
+    @Test
+    public void testLengthAndPatternMetrics() throws Exception {
+        Map<String, Object> props = profile("AB-12", "CD-34", "EF-56", "long value", null);
+        assertEquals(5L, props.get("row_count"));
+        assertEquals(20.0, props.get("null_pct"));
+        assertEquals(5, props.get("min_length"));
+        assertEquals(10, props.get("max_length"));
+        assertEquals(6.25, props.get("avg_length"));
+        assertEquals("AA-99", props.get("pattern_signature"));
+        assertEquals(75.0, props.get("pattern_coverage_pct"));
+    }
+
+    @Test
+    public void testMixedTypesAndWhitespace() throws Exception {
+        Map<String, Object> props = profile(" padded", "trailing ", 12, true);
+        assertEquals(50.0, props.get("text_pct"));
+        assertEquals(25.0, props.get("numeric_pct"));
+        assertEquals(25.0, props.get("boolean_pct"));
+        assertEquals(true, props.get("mixed_type"));
+        assertEquals(1L, props.get("leading_whitespace_count"));
+        assertEquals(1L, props.get("trailing_whitespace_count"));
+    }
+
+    @Test
+    public void testPiiHitRates() throws Exception {
+        Map<String, Object> props = profile("alice@example.com", "GB82 WEST 1234 5698 7654 32",
+                "+33 1 23 45 67 89", "2024-01-31", "plain text");
+        assertEquals(20.0, props.get("pii_email_pct"));
+        assertEquals(20.0, props.get("pii_iban_pct"));
+        assertEquals(20.0, props.get("pii_phone_pct"));
+    }
+
+    @Test
+    public void testPlainDigitStringsAreNotPhones() throws Exception {
+        Map<String, Object> ids = profile("0001234567", "0001234568", "123456789012", "15.01.2024", "4711-0815",
+                "192.168.10.25", "10.0.0.1", "1 234 567", "12,345,678.90", "1.234.567");
+        assertEquals(0.0, ids.get("pii_phone_pct"));
+
+        Map<String, Object> phones = profile("(555) 123-4567", "555.123.4567", "06 12 34 56 78", "+441234567890");
+        assertEquals(100.0, phones.get("pii_phone_pct"));
+    }
+
+    @Test
+    public void testInvalidIbanChecksumIsNotCounted() throws Exception {
+        Map<String, Object> props = profile("GB82 WEST 1234 5698 7654 33");
+        assertEquals(0.0, props.get("pii_iban_pct"));
+    }
+
+    @Test
+    public void testTopValues() throws Exception {
+        Map<String, Object> props = profile("north", "south", "north", "east", "north", "south");
+        assertEquals("[{\"value\":\"north\",\"count\":3},{\"value\":\"south\",\"count\":2},{\"value\":\"east\",\"count\":1}]",
+                props.get("top_values"));
+    }
+
+    @Test
+    public void testSpaceSavingStaysBounded() {
+        SpaceSaving sketch = new SpaceSaving(4);
+        for (int i = 0; i < 1000; i++) {
+            sketch.add("heavy");
+            sketch.add("noise-" + i);
+        }
+        List<Map.Entry<String, Long>> top = sketch.top(10);
+        assertEquals(4, top.size());
+        assertEquals("heavy", top.get(0).getKey());
+        assertTrue(top.get(0).getValue() >= 1000);
+    }
+}
@@ -269,6 +269,270 @@ public class ExcelConnectionTest {
         }
     }
 
+    @Test
+    public void testSparseSheetIgnoresFormattedOnlyRows() throws Exception {
+        File file = new File(tempDir.toFile(), "sparse.xlsx");
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet("Sparse");
+            Row headerRow = sheet.createRow(0);
+            headerRow.createCell(0).setCellValue("Name");
+            headerRow.createCell(1).setCellValue("Score");
+            for (int r = 1; r <= 3; r++) {
+                Row row = sheet.createRow(r);
+                row.createCell(0).setCellValue("name" + r);
+                row.createCell(1).setCellValue(r * 10.0);
+            }
+            // styled but empty cells far below the data
+            org.apache.poi.ss.usermodel.CellStyle style = workbook.createCellStyle();
+            style.setFillForegroundColor(org.apache.poi.ss.usermodel.IndexedColors.YELLOW.getIndex());
+            sheet.createRow(50).createCell(0).setCellStyle(style);
+            sheet.createRow(1_048_575).createCell(1).setCellStyle(style);
+            try (FileOutputStream fos = new FileOutputStream(file)) {
+                workbook.write(fos);
+            }
+        }
+
+        Configuration config = createConfiguration(tempDir.toString());
+        try (ExcelConnection conn = new ExcelConnection(config)) {
+            List<Dataset> datasets = conn.synchronize();
+            assertEquals(1, datasets.size());
+            Dataset dataset = datasets.get(0);
+
+            assertEquals(3, dataset.properties.get("data_row_count"));
+            assertEquals(2, dataset.properties.get("formatted_only_rows"));
+            assertEquals("A1:B4", dataset.properties.get("used_range"));
+            assertTrue(dataset.description.contains("(4 rows, 2 columns)"));
+            assertEquals(3L, dataset.fields.get(0).properties.get("row_count"));
+            assertEquals(0.0, dataset.fields.get(0).properties.get("null_pct"));
+        }
+    }
+
+    @Test
+    public void testIdenticalWorkbooksShareCacheEntry() throws Exception {
+        createTestExcelFile("q1.xlsx", "Sales",
+                new String[]{"Region", "Amount"},
+                new Object[][] {
+                    {"North", 100},
+                    {"South", 200}
+                });
+        Path mirror = Files.createDirectories(tempDir.resolve("mirror"));
+        Files.copy(tempDir.resolve("q1.xlsx"), mirror.resolve("q1-copy.xlsx"));
+        Path cacheDir = Files.createTempDirectory("excel-cache-");
+
+        try {
+            Configuration config = createConfiguration(tempDir.toString());
+            config.put("cacheDirectory", cacheDir.toString());
+            try (ExcelConnection conn = new ExcelConnection(config)) {
+                List<Dataset> datasets = conn.synchronize();
+                assertEquals(2, datasets.size());
+                assertTrue(datasets.stream().anyMatch(d -> d.name.equals("q1 - Sales")));
+                assertTrue(datasets.stream().anyMatch(d -> d.name.equals("q1-copy - Sales")));
+                assertTrue(datasets.stream().allMatch(d -> d.fields.size() == 2));
+            }
+            try (var entries = Files.walk(cacheDir)) {
+                assertEquals(1, entries.filter(p -> p.toString().endsWith(".json")).count());
+            }
+        } finally {
+            try (var entries = Files.walk(cacheDir)) {
+                entries.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    public void testCacheHitEqualsFreshParse() throws Exception {
+        createTestExcelFile("typed.xlsx", "Data",
+                new String[]{"Code", "Amount", "Active"},
+                new Object[][] {
+                    {" A-1", 100, "yes"},
+                    {"B-2 ", 200.5, "no"}
+                });
+        Configuration config = createConfiguration(tempDir.toString());
+        config.put("cacheDirectory", tempDir.resolve("cache").toString());
+        List<Dataset> miss;
+        List<Dataset> hit;
+        try (ExcelConnection conn = new ExcelConnection(config)) {
+            miss = conn.synchronize();
+        }
+        try (ExcelConnection conn = new ExcelConnection(config)) {
+            hit = conn.synchronize();
+        }
+        assertEquals(1, hit.size());
+        assertEquals(miss.get(0).properties, hit.get(0).properties);
+        for (int i = 0; i < miss.get(0).fields.size(); i++) {
+            assertEquals(miss.get(0).fields.get(i).properties, hit.get(0).fields.get(i).properties);
+        }
+        assertEquals(Long.class, hit.get(0).fields.get(0).properties.get("row_count").getClass());
+    }
+
+    @Test
+    public void testBannerAndStackedTablesBecomeSeparateDatasets() throws Exception {
+        File file = new File(tempDir.toFile(), "stacked.xlsx");
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet("Report");
+            sheet.createRow(0).createCell(0).setCellValue("Monthly report");
+            Row h1 = sheet.createRow(2);
+            h1.createCell(0).setCellValue("Name");
+            h1.createCell(1).setCellValue("Age");
+            Row d1 = sheet.createRow(3);
+            d1.createCell(0).setCellValue("Alice");
+            d1.createCell(1).setCellValue(30);
+            Row h2 = sheet.createRow(7);
+            h2.createCell(0).setCellValue("Product");
+            h2.createCell(1).setCellValue("Price");
+            Row d2 = sheet.createRow(8);
+            d2.createCell(0).setCellValue("Laptop");
+            d2.createCell(1).setCellValue(1000);
+            try (FileOutputStream fos = new FileOutputStream(file)) {
+                workbook.write(fos);
+            }
+        }
+
+        Configuration config = createConfiguration(tempDir.toString());
+        try (ExcelConnection conn = new ExcelConnection(config)) {
+            List<Dataset> datasets = conn.synchronize();
+            assertEquals(2, datasets.size());
+            assertEquals("stacked - Report", datasets.get(0).name);
+            assertEquals("Name", datasets.get(0).fields.get(0).name);
+            assertEquals("DOUBLE", datasets.get(0).fields.get(1).type);
+            assertEquals("stacked - Report - A8:B9", datasets.get(1).name);
+            assertEquals("Product", datasets.get(1).fields.get(0).name);
+            assertEquals(1, datasets.get(1).properties.get("data_row_count"));
+        }
+    }
+
+    @Test
+    public void testFormulaLineageFollowsSheetsAndNamedRanges() throws Exception {
+        File file = new File(tempDir.toFile(), "lineage.xlsx");
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet raw = workbook.createSheet("Raw");
+            Row rh = raw.createRow(0);
+            rh.createCell(0).setCellValue("Price");
+            rh.createCell(1).setCellValue("Rate");
+            for (int r = 1; r <= 2; r++) {
+                Row row = raw.createRow(r);
+                row.createCell(0).setCellValue(10 * r);
+                row.createCell(1).setCellValue(0.5);
+            }
+            org.apache.poi.ss.usermodel.Name rates = workbook.createName();
+            rates.setNameName("Rates");
+            rates.setRefersToFormula("Raw!$B$2:$B$3");
+
+            Sheet calc = workbook.createSheet("Calc");
+            Row ch = calc.createRow(0);
+            ch.createCell(0).setCellValue("Net");
+            ch.createCell(1).setCellValue("Gross");
+            Row c1 = calc.createRow(1);
+            c1.createCell(0).setCellFormula("Raw!A2*2");
+            c1.getCell(0).setCellValue(20);
+            c1.createCell(1).setCellFormula("A2+SUM(Rates)");
+            c1.getCell(1).setCellValue(21);
+            Row c2 = calc.createRow(2);
+            // never calculated: no cached result, so it profiles as empty
+            c2.createCell(0).setCellFormula("Raw!A3*2");
+            c2.createCell(1).setCellFormula("A3+SUM(Rates)");
+            c2.getCell(1).setCellValue(41);
+            try (FileOutputStream fos = new FileOutputStream(file)) {
+                workbook.write(fos);
+            }
+        }
+
+        Configuration config = createConfiguration(tempDir.toString());
+        try (ExcelConnection conn = new ExcelConnection(config)) {
+            List<Dataset> datasets = conn.synchronize();
+            assertEquals(2, datasets.size());
+            Dataset calc = datasets.get(1);
+            assertEquals("[\"Raw\"]", calc.properties.get("upstream_sheets"));
+
+            Dataset.Field net = calc.fields.get(0);
+            assertEquals(1, net.sourceFields.size());
+            Dataset.ItemReference price = net.sourceFields.get(0);
+            assertEquals("Raw", price.datasetId.get("sheet"));
+            assertEquals("Price", price.fieldName);
+            assertEquals(50.0, net.properties.get("null_pct"));
+            assertEquals("20.0", net.properties.get("max_value"));
+
+            Dataset.Field gross = calc.fields.get(1);
+            assertEquals(2, gross.sourceFields.size());
+            assertEquals("[\"Rates\"]", gross.properties.get("named_ranges"));
+            assertEquals("[{\"sheet\":\"Calc\",\"field\":\"Net\"},{\"sheet\":\"Raw\",\"field\":\"Rate\"},"
+                    + "{\"sheet\":\"Raw\",\"field\":\"Price\"}]", gross.properties.get("upstream_fields"));
+            assertEquals("41.0", gross.properties.get("max_value"));
+        }
+    }
+
+    @Test
+    public void testExcelTablesKeepNamesAndFirstKeepsSheetName() throws Exception {
+        File file = new File(tempDir.toFile(), "tbl.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            org.apache.poi.xssf.usermodel.XSSFSheet sheet = workbook.createSheet("Sheet1");
+            String[][] cells = {{"Code", "Amount", "", "", "Key", "Rate"}, {"A", null, "", "", "EUR", null}};
+            for (int r = 0; r < 2; r++) {
+                Row row = sheet.createRow(r);
+                for (int c = 0; c < 6; c++) {
+                    if (cells[r][c] == null) row.createCell(c).setCellValue(10 + c);
+                    else if (!cells[r][c].isEmpty()) row.createCell(c).setCellValue(cells[r][c]);
+                }
+            }
+            sheet.createTable(new org.apache.poi.ss.util.AreaReference("A1:B2", workbook.getSpreadsheetVersion()))
+                    .setName("Table1");
+            sheet.createTable(new org.apache.poi.ss.util.AreaReference("E1:F2", workbook.getSpreadsheetVersion()))
+                    .setName("Rates");
+            try (FileOutputStream fos = new FileOutputStream(file)) {
+                workbook.write(fos);
+            }
+        }
+
+        Configuration config = createConfiguration(tempDir.toString());
+        try (ExcelConnection conn = new ExcelConnection(config)) {
+            List<Dataset> datasets = conn.synchronize();
+            assertEquals(2, datasets.size());
+            assertEquals("tbl - Sheet1", datasets.get(0).name);
+            assertEquals("Table1", datasets.get(0).properties.get("table_name"));
+            assertEquals("tbl - Sheet1 - Rates", datasets.get(1).name);
+            assertEquals("Rates", datasets.get(1).properties.get("table_name"));
+        }
+    }
+
+    @Test
+    public void testLineageResolvesStackedTables() throws Exception {
+        File file = new File(tempDir.toFile(), "stackedsrc.xlsx");
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet src = workbook.createSheet("Src");
+            Object[][] rows = {{"Name", "Age"}, {"Alice", 30}, {"Bob", 25}, null, null, {"Product", "Price"}, {"Laptop", 1000}};
+            for (int r = 0; r < rows.length; r++) {
+                if (rows[r] == null) continue;
+                Row row = src.createRow(r);
+                for (int c = 0; c < 2; c++) {
+                    Object v = rows[r][c];
+                    if (v instanceof String) row.createCell(c).setCellValue((String) v);
+                    else row.createCell(c).setCellValue((Integer) v);
+                }
+            }
+            Sheet calc = workbook.createSheet("Calc");
+            calc.createRow(0).createCell(0).setCellValue("Total");
+            Cell total = calc.createRow(1).createCell(0);
+            total.setCellFormula("Src!B7*2");
+            total.setCellValue(2000);
+            try (FileOutputStream fos = new FileOutputStream(file)) {
+                workbook.write(fos);
+            }
+        }
+
+        Configuration config = createConfiguration(tempDir.toString());
+        try (ExcelConnection conn = new ExcelConnection(config)) {
+            List<Dataset> datasets = conn.synchronize();
+            assertEquals(3, datasets.size());
+            assertEquals("stackedsrc - Src - A6:B7", datasets.get(1).name);
+            Dataset.Field field = datasets.get(2).fields.get(0);
+            assertEquals(1, field.sourceFields.size());
+            Dataset.ItemReference ref = field.sourceFields.get(0);
+            assertEquals("Src", ref.datasetId.get("sheet"));
+            assertEquals("A6:B7", ref.datasetId.get("table"));
+            assertEquals("Price", ref.fieldName);
+        }
+    }
+
     @Test
     public void testCloseOperation() throws Exception {
         Configuration config = createConfiguration(tempDir.toString());
@@ -0,0 +1,96 @@
+package com.zeenea.connector.excel;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for FormulaGraph
+ */
+public class FormulaGraphTest {
+
+    @Test
+    public void testDuplicateAndSelfEdgesAreDropped() {
+        FormulaGraph.Builder b = new FormulaGraph.Builder();
+        int a = b.column(0, 0, 0);
+        int c = b.column(0, 0, 1);
+        b.edge(c, a);
+        b.edge(c, a);
+        b.edge(c, c);
+        FormulaGraph g = b.build();
+        assertEquals(1, g.edgeCount());
+        assertArrayEquals(new int[]{a}, g.directColumns(c));
+        assertEquals(0, g.directColumns(a).length);
+    }
+
+    @Test
+    public void testUpstreamIsTransitiveAcrossSheets() {
+        FormulaGraph.Builder b = new FormulaGraph.Builder();
+        int raw = b.column(0, 0, 1);
+        int net = b.column(1, 0, 0);
+        int gross = b.column(1, 0, 1);
+        int report = b.column(2, 0, 3);
+        b.edge(net, raw);
+        b.edge(gross, net);
+        b.edge(report, gross);
+        FormulaGraph g = b.build();
+
+        assertEquals(report, g.columnNode(2, 0, 3));
+        assertEquals(-1, g.columnNode(2, 0, 4));
+        assertArrayEquals(new int[]{gross}, g.directColumns(report));
+        int[] upstream = g.upstreamColumns(report);
+        Arrays.sort(upstream);
+        assertArrayEquals(new int[]{raw, net, gross}, upstream);
+        assertEquals(0, g.sheetOf(raw));
+        assertEquals(1, g.columnOf(raw));
+        assertEquals(0, g.regionOf(raw));
+    }
+
+    @Test
+    public void testSameColumnOfStackedRegionsAreDistinctNodes() {
+        FormulaGraph.Builder b = new FormulaGraph.Builder();
+        int first = b.column(0, 0, 1);
+        int second = b.column(0, 1, 1);
+        int loose = b.column(0, -1, 1);
+        int calc = b.column(1, 0, 0);
+        b.edge(calc, second);
+        FormulaGraph g = b.build();
+
+        assertNotEquals(first, second);
+        assertNotEquals(second, loose);
+        assertEquals(-1, g.regionOf(loose));
+        assertArrayEquals(new int[]{second}, g.directColumns(calc));
+        assertEquals(second, g.columnNode(0, 1, 1));
+    }
+
+    @Test
+    public void testNamesAreLookedThrough() {
+        FormulaGraph.Builder b = new FormulaGraph.Builder();
+        int rates = b.name(0, "Rates");
+        int rate = b.column(0, 0, 1);
+        int total = b.column(1, 0, 0);
+        b.edge(rates, rate);
+        b.edge(total, rates);
+        FormulaGraph g = b.build();
+
+        assertTrue(g.isName(rates));
+        assertEquals("Rates", g.nameOf(rates));
+        assertEquals(rates, b.name(0, "Rates"));
+        assertArrayEquals(new int[]{rate}, g.directColumns(total));
+        assertArrayEquals(new int[]{rates}, g.directNames(total));
+        assertArrayEquals(new int[]{rate}, g.upstreamColumns(total));
+    }
+
+    @Test
+    public void testCyclesTerminate() {
+        FormulaGraph.Builder b = new FormulaGraph.Builder();
+        int x = b.column(0, 0, 0);
+        int y = b.column(0, 0, 1);
+        b.edge(x, y);
+        b.edge(y, x);
+        FormulaGraph g = b.build();
+        assertArrayEquals(new int[]{y}, g.upstreamColumns(x));
+    }
+}
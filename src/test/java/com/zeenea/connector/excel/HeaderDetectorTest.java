@@ -0,0 +1,334 @@
+package com.zeenea.connector.excel;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Name;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.AreaReference;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFTable;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for HeaderDetector
+ */
+public class HeaderDetectorTest {
+
+    private static void put(Sheet sheet, int r, int c, Object value) {
+        Row row = sheet.getRow(r) == null ? sheet.createRow(r) : sheet.getRow(r);
+        if (value instanceof String) row.createCell(c).setCellValue((String) value);
+        else row.createCell(c).setCellValue(((Number) value).doubleValue());
+    }
+
+    private static List<TableRegion> detect(Sheet sheet) {
+        return HeaderDetector.detect(sheet, SheetExtent.scan(sheet));
+    }
+
+    @Test
+    public void testPlainHeaderOnFirstRow() throws Exception {
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            Sheet sheet = wb.createSheet("Plain");
+            put(sheet, 0, 0, "ID");
+            put(sheet, 0, 1, "Amount");
+            put(sheet, 1, 0, 1);
+            put(sheet, 1, 1, 10.5);
+            put(sheet, 2, 0, 2);
+            put(sheet, 2, 1, 20.5);
+
+            List<TableRegion> regions = detect(sheet);
+            assertEquals(1, regions.size());
+            TableRegion r = regions.get(0);
+            assertNull(r.name);
+            assertEquals(List.of("ID", "Amount"), r.headers);
+            assertEquals(2, r.dataRowCount());
+            assertEquals("A1:B3", r.range());
+        }
+    }
+
+    @Test
+    public void testBannerBlankRowsAndColumnOffset() throws Exception {
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            Sheet sheet = wb.createSheet("Report");
+            put(sheet, 0, 0, "Quarterly sales report");
+            sheet.addMergedRegion(new CellRangeAddress(0, 0, 0, 4));
+            put(sheet, 1, 0, "Generated 2024-04-01");
+            put(sheet, 4, 2, "Region");
+            put(sheet, 4, 3, "Units");
+            put(sheet, 4, 4, 2024);
+            for (int r = 5; r < 9; r++) {
+                put(sheet, r, 2, "R" + r);
+                put(sheet, r, 3, r * 3);
+                put(sheet, r, 4, r * 1.5);
+            }
+            // footer after a blank gap is not part of the table
+            put(sheet, 12, 2, "Source: finance");
+
+            List<TableRegion> regions = detect(sheet);
+            assertEquals(1, regions.size());
+            TableRegion r = regions.get(0);
+            assertEquals(4, r.headerFirstRow);
+            assertEquals(2, r.firstColumn);
+            assertEquals(List.of("Region", "Units", "2024"), r.headers);
+            assertEquals(8, r.lastRow);
+            assertEquals("C5:E9", r.range());
+        }
+    }
+
+    @Test
+    public void testMultiRowMergedHeader() throws Exception {
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            Sheet sheet = wb.createSheet("Grouped");
+            put(sheet, 0, 0, "Region");
+            sheet.addMergedRegion(new CellRangeAddress(0, 1, 0, 0));
+            put(sheet, 0, 1, "Q1");
+            sheet.addMergedRegion(new CellRangeAddress(0, 0, 1, 2));
+            put(sheet, 0, 3, "Q2");
+            sheet.addMergedRegion(new CellRangeAddress(0, 0, 3, 4));
+            put(sheet, 1, 1, "Units");
+            put(sheet, 1, 2, "Revenue");
+            put(sheet, 1, 3, "Units");
+            put(sheet, 1, 4, "Revenue");
+            for (int r = 2; r < 5; r++) {
+                put(sheet, r, 0, "R" + r);
+                for (int c = 1; c < 5; c++) put(sheet, r, c, r * c);
+            }
+
+            List<TableRegion> regions = detect(sheet);
+            assertEquals(1, regions.size());
+            TableRegion r = regions.get(0);
+            assertEquals(2, r.headerRowCount());
+            assertEquals(List.of("Region", "Q1 / Units", "Q1 / Revenue", "Q2 / Units", "Q2 / Revenue"), r.headers);
+            assertEquals(3, r.dataRowCount());
+        }
+    }
+
+    @Test
+    public void testStackedTables() throws Exception {
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            Sheet sheet = wb.createSheet("Stacked");
+            put(sheet, 0, 0, "Name");
+            put(sheet, 0, 1, "Age");
+            put(sheet, 1, 0, "Alice");
+            put(sheet, 1, 1, 30);
+            put(sheet, 2, 0, "Bob");
+            put(sheet, 2, 1, 25);
+            put(sheet, 6, 0, "Product");
+            put(sheet, 6, 1, "Price");
+            put(sheet, 7, 0, "Laptop");
+            put(sheet, 7, 1, 1000);
+
+            List<TableRegion> regions = detect(sheet);
+            assertEquals(2, regions.size());
+            assertEquals(List.of("Name", "Age"), regions.get(0).headers);
+            assertEquals(2, regions.get(0).dataRowCount());
+            assertEquals("A7:B8", regions.get(1).name);
+            assertEquals(List.of("Product", "Price"), regions.get(1).headers);
+            assertEquals(1, regions.get(1).dataRowCount());
+        }
+    }
+
+    @Test
+    public void testSideBySideTables() throws Exception {
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            Sheet sheet = wb.createSheet("Lookups");
+            put(sheet, 0, 0, "Reference data");
+            put(sheet, 2, 0, "Id");
+            put(sheet, 2, 1, "Name");
+            put(sheet, 2, 4, "Code");
+            put(sheet, 2, 5, "Price");
+            for (int r = 3; r < 6; r++) {
+                put(sheet, r, 0, r);
+                put(sheet, r, 1, "name" + r);
+            }
+            for (int r = 3; r < 5; r++) {
+                put(sheet, r, 4, "C" + r);
+                put(sheet, r, 5, r * 2.5);
+            }
+
+            List<TableRegion> regions = detect(sheet);
+            assertEquals(2, regions.size());
+            assertNull(regions.get(0).name);
+            assertEquals("A3:B6", regions.get(0).range());
+            assertEquals(List.of("Id", "Name"), regions.get(0).headers);
+            assertEquals("E3:F5", regions.get(1).name);
+            assertEquals(List.of("Code", "Price"), regions.get(1).headers);
+            assertEquals(2, regions.get(1).dataRowCount());
+        }
+    }
+
+    @Test
+    public void testDefinedTables() throws Exception {
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            XSSFSheet sheet = wb.createSheet("Tables");
+            put(sheet, 0, 0, "Title banner");
+            put(sheet, 2, 1, "Code");
+            put(sheet, 2, 2, "Label");
+            put(sheet, 3, 1, 1);
+            put(sheet, 3, 2, "one");
+            put(sheet, 4, 1, 2);
+            put(sheet, 4, 2, "two");
+            XSSFTable table = sheet.createTable(new AreaReference(
+                    new CellReference(2, 1), new CellReference(4, 2), wb.getSpreadsheetVersion()));
+            table.setName("Codes");
+
+            List<TableRegion> regions = detect(sheet);
+            assertEquals(1, regions.size());
+            TableRegion r = regions.get(0);
+            assertEquals("Codes", r.name);
+            assertEquals(List.of("Code", "Label"), r.headers);
+            assertEquals(2, r.dataRowCount());
+            assertEquals(1, r.firstColumn);
+        }
+    }
+
+    @Test
+    public void testNamedRange() throws Exception {
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            Sheet sheet = wb.createSheet("Lookup");
+            put(sheet, 0, 0, "Notes about this sheet");
+            put(sheet, 3, 0, "Key");
+            put(sheet, 3, 1, "Value");
+            put(sheet, 4, 0, "a");
+            put(sheet, 4, 1, 1);
+            Name name = wb.createName();
+            name.setNameName("LookupTable");
+            name.setRefersToFormula("Lookup!$A$4:$B$5");
+
+            List<TableRegion> regions = detect(sheet);
+            assertEquals(1, regions.size());
+            assertEquals("LookupTable", regions.get(0).name);
+            assertEquals(List.of("Key", "Value"), regions.get(0).headers);
+            assertEquals(1, regions.get(0).dataRowCount());
+        }
+    }
+
+    @Test
+    public void testNamedRangeBesideMainTable() throws Exception {
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            Sheet sheet = wb.createSheet("Data");
+            put(sheet, 0, 0, "ID");
+            put(sheet, 0, 1, "Amount");
+            put(sheet, 0, 2, "Region");
+            for (int r = 1; r <= 5; r++) {
+                put(sheet, r, 0, r);
+                put(sheet, r, 1, r * 10.5);
+                put(sheet, r, 2, "R" + r);
+            }
+            put(sheet, 1, 3, "Currency");
+            put(sheet, 1, 4, "Rate");
+            put(sheet, 2, 3, "EUR");
+            put(sheet, 2, 4, 1.0);
+            put(sheet, 3, 3, "USD");
+            put(sheet, 3, 4, 1.1);
+            Name name = wb.createName();
+            name.setNameName("RateTable");
+            name.setRefersToFormula("Data!$D$2:$E$4");
+
+            List<TableRegion> regions = detect(sheet);
+            assertEquals(2, regions.size());
+            assertNull(regions.get(0).name);
+            assertEquals(List.of("ID", "Amount", "Region"), regions.get(0).headers);
+            assertEquals(5, regions.get(0).dataRowCount());
+            assertEquals("A1:C6", regions.get(0).range());
+            assertEquals("RateTable", regions.get(1).name);
+            assertEquals("D2:E4", regions.get(1).range());
+            assertEquals(List.of("Currency", "Rate"), regions.get(1).headers);
+        }
+    }
+
+    @Test
+    public void testNamedDataBodyFoldsIntoHeaderRegion() throws Exception {
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            Sheet sheet = wb.createSheet("S");
+            put(sheet, 0, 0, "Id");
+            put(sheet, 0, 1, "Name");
+            put(sheet, 0, 2, "Amount");
+            for (int r = 1; r <= 5; r++) {
+                put(sheet, r, 0, r);
+                put(sheet, r, 1, "n" + r);
+                put(sheet, r, 2, r * 10);
+            }
+            Name name = wb.createName();
+            name.setNameName("Body");
+            name.setRefersToFormula("S!$A$2:$C$6");
+
+            List<TableRegion> regions = detect(sheet);
+            assertEquals(1, regions.size());
+            assertEquals("A1:C6", regions.get(0).range());
+            assertEquals(List.of("Id", "Name", "Amount"), regions.get(0).headers);
+            assertEquals(5, regions.get(0).dataRowCount());
+        }
+    }
+
+    @Test
+    public void testNumericYearHeaderBelowBanner() throws Exception {
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            Sheet sheet = wb.createSheet("Revenue");
+            put(sheet, 0, 0, "Revenue by year");
+            put(sheet, 2, 0, "Region");
+            put(sheet, 2, 1, 2021);
+            put(sheet, 2, 2, 2022);
+            put(sheet, 2, 3, 2023);
+            for (int r = 3; r < 7; r++) {
+                put(sheet, r, 0, "R" + r);
+                for (int c = 1; c < 4; c++) put(sheet, r, c, r * c * 100);
+            }
+
+            List<TableRegion> regions = detect(sheet);
+            assertEquals(1, regions.size());
+            TableRegion r = regions.get(0);
+            assertEquals(List.of("Region", "2021", "2022", "2023"), r.headers);
+            assertEquals("A3:D7", r.range());
+            assertEquals(4, r.dataRowCount());
+        }
+    }
+
+    @Test
+    public void testFormulaHeadersUseCachedValues() throws Exception {
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            Sheet sheet = wb.createSheet("Budget");
+            put(sheet, 0, 0, "Region");
+            for (int c = 1; c < 3; c++) {
+                Cell cell = sheet.getRow(0).createCell(c);
+                cell.setCellFormula("\"FY\"&" + (2021 + c));
+                cell.setCellValue("FY" + (2021 + c));
+            }
+            for (int r = 1; r < 4; r++) {
+                put(sheet, r, 0, "R" + r);
+                for (int c = 1; c < 3; c++) put(sheet, r, c, r * c * 100);
+            }
+
+            List<TableRegion> regions = detect(sheet);
+            assertEquals(1, regions.size());
+            assertEquals(List.of("Region", "FY2022", "FY2023"), regions.get(0).headers);
+            assertEquals("A1:C4", regions.get(0).range());
+        }
+    }
+
+    @Test
+    public void testBlankGapInsideDataDoesNotSplit() throws Exception {
+        try (XSSFWorkbook wb = new XSSFWorkbook()) {
+            Sheet sheet = wb.createSheet("S");
+            put(sheet, 0, 0, "Key");
+            put(sheet, 0, 1, "Label");
+            put(sheet, 1, 0, "a");
+            put(sheet, 1, 1, "x");
+            put(sheet, 4, 0, "b");
+            put(sheet, 4, 1, "y");
+            put(sheet, 5, 0, "c");
+            put(sheet, 5, 1, "z");
+
+            List<TableRegion> regions = detect(sheet);
+            assertEquals(1, regions.size());
+            assertEquals("A1:B6", regions.get(0).range());
+            assertEquals(5, regions.get(0).dataRowCount());
+        }
+    }
+}
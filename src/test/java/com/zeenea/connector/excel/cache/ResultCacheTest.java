@@ -0,0 +1,137 @@
+package com.zeenea.connector.excel.cache;
+
+import com.zeenea.sdk.model.Dataset;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for the result cache stores and workbook fingerprints
+ */
+public class ResultCacheTest {
+
+    private Path tempDir;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        tempDir = Files.createTempDirectory("excel-cache-test-");
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        if (tempDir != null) {
+            Files.walk(tempDir)
+                    .sorted((a, b) -> b.compareTo(a))
+                    .forEach(p -> {
+                        try {
+                            Files.delete(p);
+                        } catch (IOException e) {
+                            // ignore cleanup errors
+                        }
+                    });
+        }
+    }
+
+    private List<Dataset> sampleDatasets(String sheetName) {
+        Dataset ds = new Dataset();
+        ds.properties.put("sheet_name", sheetName);
+        Dataset.Field f = new Dataset.Field();
+        f.name = "Amount";
+        f.type = "DOUBLE";
+        f.properties.put("null_pct", 0.0);
+        ds.addField(f);
+        return List.of(ds);
+    }
+
+    @Test
+    public void testDirectoryCacheRoundTrip() throws Exception {
+        try (ResultCache cache = new DirectoryResultCache(tempDir.resolve("cache"))) {
+            assertNull(cache.get("abcdef"));
+            cache.put("abcdef", sampleDatasets("Sheet1"));
+
+            List<Dataset> cached = cache.get("abcdef");
+            assertNotNull(cached);
+            assertEquals(1, cached.size());
+            assertEquals("Sheet1", cached.get(0).properties.get("sheet_name"));
+            assertEquals("Amount", cached.get(0).fields.get(0).name);
+        }
+    }
+
+    @Test
+    public void testKeyValueFileCacheSeesOtherWriters() throws Exception {
+        Path store = tempDir.resolve("results.kv");
+        try (ResultCache reader = new KeyValueFileResultCache(store);
+             ResultCache writer = new KeyValueFileResultCache(store)) {
+            assertNull(reader.get("k1"));
+            writer.put("k1", sampleDatasets("First"));
+            writer.put("k2", sampleDatasets("Second"));
+
+            assertEquals("First", reader.get("k1").get(0).properties.get("sheet_name"));
+            assertEquals("Second", reader.get("k2").get(0).properties.get("sheet_name"));
+            assertNull(reader.get("k3"));
+        }
+    }
+
+    @Test
+    public void testKeyValueFileCacheInstancesShareStoreAcrossThreads() throws Exception {
+        Path store = tempDir.resolve("shared.kv");
+        try (ResultCache first = new KeyValueFileResultCache(store);
+             ResultCache second = new KeyValueFileResultCache(tempDir.resolve(".").resolve("shared.kv"))) {
+            ExecutorService pool = Executors.newFixedThreadPool(2);
+            try {
+                List<Future<?>> writes = new ArrayList<>();
+                for (int i = 0; i < 50; i++) {
+                    String key = "k" + i;
+                    ResultCache cache = i % 2 == 0 ? first : second;
+                    writes.add(pool.submit(() -> {
+                        cache.put(key, sampleDatasets(key));
+                        return null;
+                    }));
+                }
+                for (Future<?> w : writes) w.get();
+            } finally {
+                pool.shutdown();
+            }
+            for (int i = 0; i < 50; i++) {
+                assertEquals("k" + i, first.get("k" + i).get(0).properties.get("sheet_name"));
+            }
+        }
+    }
+
+    @Test
+    public void testFingerprintIgnoresPathAndTracksContent() throws Exception {
+        Path a = writeWorkbook("a.xlsx", "value");
+        Path copy = Files.copy(a, tempDir.resolve("copy-of-a.xlsx"));
+        Path b = writeWorkbook("b.xlsx", "other");
+
+        String keyA = WorkbookFingerprint.of(a, 1);
+        assertEquals(keyA, WorkbookFingerprint.of(copy, 1));
+        assertNotEquals(keyA, WorkbookFingerprint.of(b, 1));
+        assertNotEquals(keyA, WorkbookFingerprint.of(a, 2));
+    }
+
+    private Path writeWorkbook(String name, String value) throws Exception {
+        Path file = tempDir.resolve(name);
+        try (Workbook workbook = new XSSFWorkbook()) {
+            workbook.createSheet("Sheet1").createRow(0).createCell(0).setCellValue(value);
+            try (FileOutputStream fos = new FileOutputStream(file.toFile())) {
+                workbook.write(fos);
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,155 @@
+package com.zeenea.connector.excel.shard;
+
+import com.zeenea.connector.excel.ExcelConnection;
+import com.zeenea.sdk.connector.Configuration;
+import com.zeenea.sdk.model.Dataset;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for sharded synchronization through ShardCoordinator
+ */
+public class ShardCoordinatorTest {
+
+    private Path tempDir;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        tempDir = Files.createTempDirectory("excel-shard-test-");
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        if (tempDir != null) {
+            Files.walk(tempDir)
+                    .sorted((a, b) -> b.compareTo(a))
+                    .forEach(p -> {
+                        try {
+                            Files.delete(p);
+                        } catch (IOException e) {
+                            // ignore cleanup errors
+                        }
+                    });
+        }
+    }
+
+    @Test
+    public void testMergedShardsMatchSingleRun() throws Exception {
+        Path data = Files.createDirectories(tempDir.resolve("data"));
+        Files.createDirectories(data.resolve("sub"));
+        for (int i = 0; i < 6; i++) {
+            writeWorkbook(data.resolve((i % 2 == 0 ? "" : "sub/") + "book" + i + ".xlsx"), "Sheet" + i);
+        }
+        Path shardDir = tempDir.resolve("shards");
+        int shardCount = 3;
+
+        List<Dataset> expected;
+        try (ExcelConnection single = new ExcelConnection(configuration(data))) {
+            expected = single.synchronize();
+        }
+        assertEquals(6, expected.size());
+
+        ShardCoordinator.startRun(shardDir);
+        int processed = 0;
+        for (int i = 0; i < shardCount; i++) {
+            Configuration config = configuration(data);
+            config.put("shardCount", String.valueOf(shardCount));
+            config.put("shardIndex", String.valueOf(i));
+            config.put("shardDirectory", shardDir.toString());
+            try (ExcelConnection worker = new ExcelConnection(config)) {
+                processed += worker.synchronize().size();
+            }
+        }
+        assertEquals(6, processed);
+
+        List<Dataset> merged = ShardCoordinator.merge(shardDir, shardCount, Duration.ofSeconds(5));
+        assertEquals(names(expected), names(merged));
+        // full equality, value types included: Long counters must not come back as Integer
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).properties, merged.get(i).properties);
+            for (int f = 0; f < expected.get(i).fields.size(); f++) {
+                assertEquals(expected.get(i).fields.get(f).properties, merged.get(i).fields.get(f).properties);
+            }
+        }
+    }
+
+    @Test
+    public void testMergeTimesOutOnMissingShard() throws Exception {
+        String runId = ShardCoordinator.startRun(tempDir);
+        ShardCoordinator.publish(tempDir, runId, 0, 2, List.of());
+        IOException e = assertThrows(IOException.class,
+                () -> ShardCoordinator.merge(tempDir, 2, Duration.ofMillis(300)));
+        assertTrue(e.getMessage().contains("[1]"));
+    }
+
+    @Test
+    public void testShardsOfPreviousRunAreIgnored() throws Exception {
+        String previous = ShardCoordinator.startRun(tempDir);
+        ShardCoordinator.startRun(tempDir);
+        // a late worker of the previous run publishes after the new run started
+        ShardCoordinator.publish(tempDir, previous, 0, 1, List.of());
+        IOException e = assertThrows(IOException.class,
+                () -> ShardCoordinator.merge(tempDir, 1, Duration.ofMillis(300)));
+        assertTrue(e.getMessage().contains("[0]"));
+    }
+
+    @Test
+    public void testMergeAndWorkersRequireStartedRun() throws Exception {
+        assertThrows(IOException.class, () -> ShardCoordinator.merge(tempDir, 1, Duration.ofMillis(300)));
+
+        Path data = Files.createDirectories(tempDir.resolve("data"));
+        Configuration config = configuration(data);
+        config.put("shardCount", "1");
+        config.put("shardIndex", "0");
+        config.put("shardDirectory", tempDir.resolve("shards").toString());
+        try (ExcelConnection worker = new ExcelConnection(config)) {
+            assertThrows(IOException.class, worker::synchronize);
+        }
+    }
+
+    @Test
+    public void testShardConfigurationValidation() {
+        Configuration config = configuration(tempDir);
+        config.put("shardCount", "2");
+        config.put("shardIndex", "2");
+        config.put("shardDirectory", tempDir.toString());
+        assertThrows(IllegalArgumentException.class, () -> new ExcelConnection(config));
+    }
+
+    private Configuration configuration(Path dir) {
+        Configuration config = new Configuration();
+        config.put("directoryPath", dir.toString());
+        return config;
+    }
+
+    private List<String> names(List<Dataset> datasets) {
+        return datasets.stream().map(d -> d.name).collect(Collectors.toList());
+    }
+
+    private void writeWorkbook(Path file, String sheetName) throws Exception {
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet(sheetName);
+            sheet.createRow(0).createCell(0).setCellValue("Value");
+            Row row = sheet.createRow(1);
+            row.createCell(0).setCellValue(42.0);
+            try (FileOutputStream fos = new FileOutputStream(file.toFile())) {
+                workbook.write(fos);
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.zeenea.connector.excel.shard;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test cases for ShardRing
+ */
+public class ShardRingTest {
+
+    @Test
+    public void testOwnershipIsStable() {
+        ShardRing a = new ShardRing(4);
+        ShardRing b = new ShardRing(4);
+        for (int i = 0; i < 100; i++) {
+            String key = "dir/file-" + i + ".xlsx";
+            assertEquals(a.owner(key), b.owner(key));
+        }
+    }
+
+    @Test
+    public void testKeysSpreadOverAllShards() {
+        ShardRing ring = new ShardRing(4);
+        int[] counts = new int[4];
+        for (int i = 0; i < 4000; i++) {
+            counts[ring.owner("reports/" + i + ".xlsx")]++;
+        }
+        for (int c : counts) {
+            assertTrue(c > 600 && c < 1400, "unbalanced shard size " + c);
+        }
+    }
+
+    @Test
+    public void testGrowingRingOnlyMovesKeysToNewShard() {
+        ShardRing three = new ShardRing(3);
+        ShardRing four = new ShardRing(4);
+        int moved = 0;
+        for (int i = 0; i < 4000; i++) {
+            String key = "reports/" + i + ".xlsx";
+            int before = three.owner(key);
+            int after = four.owner(key);
+            if (before != after) {
+                assertEquals(3, after);
+                moved++;
+            }
+        }
+        assertTrue(moved < 1600, "too many keys moved: " + moved);
+    }
+
+    @Test
+    public void testInvalidShardCount() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardRing(0));
+    }
+}